@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.benchmarks;
+
+import eu.merloteducation.organisationsorchestrator.models.AESGCM;
+import org.bouncycastle.crypto.CryptoException;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the throughput of {@link AESGCM} with the previous implementation that created a new SecureRandom
+ * and Cipher on every call. Plain text lengths correspond to a DAPS keystore password and a PEM private key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AESGCMBenchmark {
+
+    @Param({"32", "1704"})
+    private int plainTextLength;
+
+    private SecretKey key;
+
+    private String plainText;
+
+    private String cipherText;
+
+    @Setup
+    public void setUp() throws CryptoException {
+        key = new SecretKeySpec("1234123412341234".getBytes(StandardCharsets.UTF_8), AESGCM.ALGORITHM);
+        plainText = "k".repeat(plainTextLength);
+        cipherText = AESGCM.encrypt(plainText, key);
+    }
+
+    @Benchmark
+    public String encrypt() throws CryptoException {
+        return AESGCM.encrypt(plainText, key);
+    }
+
+    @Benchmark
+    public String decrypt() throws CryptoException {
+        return AESGCM.decrypt(cipherText, key);
+    }
+
+    @Benchmark
+    public String encryptBaseline() throws GeneralSecurityException {
+        return BaselineAESGCM.encrypt(plainText, key);
+    }
+
+    @Benchmark
+    public String decryptBaseline() throws GeneralSecurityException {
+        return BaselineAESGCM.decrypt(cipherText, key);
+    }
+
+    /**
+     * Previous implementation, allocating a SecureRandom and a Cipher per call.
+     */
+    static final class BaselineAESGCM {
+
+        private BaselineAESGCM() {
+        }
+
+        static String encrypt(String plainText, SecretKey secretKey) throws GeneralSecurityException {
+            byte[] iv = new byte[12];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+            byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer byteBuffer = ByteBuffer.allocate(4 + iv.length + encrypted.length);
+            byteBuffer.putInt(iv.length);
+            byteBuffer.put(iv);
+            byteBuffer.put(encrypted);
+            return Base64.getEncoder().encodeToString(byteBuffer.array());
+        }
+
+        static String decrypt(String cipherMessage, SecretKey secretKey) throws GeneralSecurityException {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(Base64.getDecoder().decode(cipherMessage));
+            byte[] iv = new byte[byteBuffer.getInt()];
+            byteBuffer.get(iv);
+            byte[] encrypted = new byte[byteBuffer.remaining()];
+            byteBuffer.get(encrypted);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+            return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+        }
+    }
+}
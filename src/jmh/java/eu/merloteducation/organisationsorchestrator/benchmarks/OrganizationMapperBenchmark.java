@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantMetaDto;
+import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
+import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapperImpl;
+import eu.merloteducation.organisationsorchestrator.models.entities.OrganizationMetadata;
+import org.bouncycastle.crypto.CryptoException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the mapping of a participant from its self-description and stored metadata into the DTO returned by the
+ * read endpoints. Metadata is reloaded per invocation so that lazily decrypted secrets are decrypted in every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrganizationMapperBenchmark {
+
+    @Param({"1", "10"})
+    private int connectorCount;
+
+    @Param({"0", "5"})
+    private int certificateCount;
+
+    private OrganizationMapper organizationMapper;
+
+    private ExtendedVerifiablePresentation selfDescription;
+
+    private MerlotParticipantMetaDto metaDto;
+
+    private OrganizationMetadata metadata;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException, CryptoException {
+        organizationMapper = new OrganizationMapperImpl();
+        selfDescription = ParticipantReadPathData.createSelfDescription(0);
+        metaDto = organizationMapper.organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets(
+                ParticipantReadPathData.createMetadata(0, connectorCount, certificateCount));
+    }
+
+    @Setup(Level.Invocation)
+    public void loadMetadata() throws CryptoException {
+        metadata = ParticipantReadPathData.createMetadata(0, connectorCount, certificateCount);
+    }
+
+    @Benchmark
+    public MerlotParticipantMetaDto metadataToMetaDto() {
+        return organizationMapper.organizationMetadataToMerlotParticipantMetaDto(metadata);
+    }
+
+    @Benchmark
+    public MerlotParticipantMetaDto metadataToMetaDtoWithoutSecrets() {
+        return organizationMapper.organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets(metadata);
+    }
+
+    @Benchmark
+    public MerlotParticipantDto selfDescriptionAndMetadataToParticipantDto() {
+        return organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(selfDescription, metaDto);
+    }
+}
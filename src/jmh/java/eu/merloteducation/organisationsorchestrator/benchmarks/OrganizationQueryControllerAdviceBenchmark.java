@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.merloteducation.authorizationlibrary.authorization.AuthorityChecker;
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRole;
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.organisationsorchestrator.controller.OrganizationQueryControllerAdvice;
+import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
+import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapperImpl;
+import eu.merloteducation.organisationsorchestrator.models.entities.OrganizationMetadata;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.crypto.CryptoException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the response body advice of the participant endpoints, which hides data depending on the active role and
+ * resolves the legal name of the signer of each participant. Signer legal names are served from memory so that only
+ * the work done by the advice itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrganizationQueryControllerAdviceBenchmark {
+
+    @Param({"9", "100"})
+    private int pageSize;
+
+    @Param({"OrgLegRep", "FedAdmin"})
+    private String activeRole;
+
+    private OrganizationMapper organizationMapper;
+
+    private OrganizationQueryControllerAdvice advice;
+
+    private List<ExtendedVerifiablePresentation> selfDescriptions;
+
+    private List<OrganizationMetadata> metadata;
+
+    private ServletServerHttpRequest request;
+
+    private PageImpl<MerlotParticipantDto> page;
+
+    private MerlotParticipantDto participant;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException, CryptoException {
+        organizationMapper = new OrganizationMapperImpl();
+        advice = new OrganizationQueryControllerAdvice(new AuthorityChecker(),
+                new InMemorySignerLegalNameService(Map.of(ParticipantReadPathData.SIGNER_ID, "MERLOT Federation")));
+
+        selfDescriptions = new ArrayList<>();
+        metadata = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            selfDescriptions.add(ParticipantReadPathData.createSelfDescription(i));
+            metadata.add(ParticipantReadPathData.createMetadata(i, 1, 1));
+        }
+
+        // the requesting user represents the first participant on the page
+        String representedId = ParticipantReadPathData.getParticipantId(0);
+        OrganizationRole role = activeRole.equals("FedAdmin") ? OrganizationRole.FED_ADMIN : OrganizationRole.ORG_LEG_REP;
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null,
+                List.of(new OrganizationRoleGrantedAuthority(role, representedId))));
+
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.addHeader("Active-Role", activeRole + "_" + representedId);
+        request = new ServletServerHttpRequest(servletRequest);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * The advice hides data in place, hence the participants are mapped again before every call.
+     */
+    @Setup(Level.Invocation)
+    public void mapParticipants() {
+        List<MerlotParticipantDto> participants = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            participants.add(organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(selfDescriptions.get(i),
+                    organizationMapper.organizationMetadataToMerlotParticipantMetaDto(metadata.get(i))));
+        }
+        page = new PageImpl<>(participants, PageRequest.of(0, pageSize), pageSize);
+        participant = participants.get(pageSize - 1);
+    }
+
+    @Benchmark
+    public Object participantPage() {
+        return advice.beforeBodyWrite(page, null, MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class, request, null);
+    }
+
+    @Benchmark
+    public Object singleParticipant() {
+        return advice.beforeBodyWrite(participant, null, MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class, request, null);
+    }
+
+    /**
+     * Legal name service answering from a fixed map instead of querying the catalog.
+     */
+    static final class InMemorySignerLegalNameService extends SignerLegalNameService {
+
+        private final Map<String, String> legalNames;
+
+        InMemorySignerLegalNameService(Map<String, String> legalNames) {
+            super(null, new SimpleMeterRegistry(), Duration.ofMinutes(10), legalNames.size());
+            this.legalNames = legalNames;
+        }
+
+        @Override
+        public String getLegalNameForSigner(String signerId) {
+            return legalNames.get(signerId);
+        }
+
+        @Override
+        public Map<String, String> getLegalNamesForSigners(Collection<String> signerIds) {
+            Map<String, String> result = new HashMap<>();
+            for (String signerId : signerIds) {
+                if (legalNames.containsKey(signerId)) {
+                    result.put(signerId, legalNames.get(signerId));
+                }
+            }
+            return result;
+        }
+    }
+}
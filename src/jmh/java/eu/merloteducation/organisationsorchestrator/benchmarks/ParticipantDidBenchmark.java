@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.benchmarks;
+
+import eu.merloteducation.organisationsorchestrator.models.ParticipantDid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compare the {@link ParticipantDid} scanner with the previous per-call String.matches and a precompiled pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ParticipantDidBenchmark {
+
+    private static final String REGEX = "did:web:[-.A-Za-z0-9:%#]*";
+
+    private static final Pattern PATTERN = Pattern.compile(REGEX);
+
+    @Param({
+            "did:web:localhost%3A8443:participant:df15587a-0760-32b5-9c42-bb7be66e8076",
+            "did:web:localhost%3A8443:participant:df15587a 0760"
+    })
+    private String id;
+
+    @Benchmark
+    public boolean stringMatches() {
+        return id.matches(REGEX);
+    }
+
+    @Benchmark
+    public boolean precompiledPattern() {
+        return PATTERN.matcher(id).matches();
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return ParticipantDid.isValid(id);
+    }
+}
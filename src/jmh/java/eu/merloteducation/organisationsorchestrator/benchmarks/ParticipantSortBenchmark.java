@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
+import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapperImpl;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import org.bouncycastle.crypto.CryptoException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure sorting a page of participants by legal name as done for the participant listing.
+ * The default page size of the frontend is 9, 100 corresponds to the largest page that is requested.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticipantSortBenchmark {
+
+    @Param({"9", "100"})
+    private int pageSize;
+
+    private List<MerlotParticipantDto> participants;
+
+    @Setup
+    public void setUp() throws JsonProcessingException, CryptoException {
+        OrganizationMapper organizationMapper = new OrganizationMapperImpl();
+        participants = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            participants.add(organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(
+                    ParticipantReadPathData.createSelfDescription(i),
+                    organizationMapper.organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets(
+                            ParticipantReadPathData.createMetadata(i, 1, 0))));
+        }
+    }
+
+    @Benchmark
+    public List<MerlotParticipantDto> sortByLegalName() {
+        return participants.stream().sorted(ParticipantService.LEGAL_NAME_ORDER).toList();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.benchmarks;
+
+import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapper;
+import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapperImpl;
+import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare reading a registration form through {@link RegistrationFormService} with the previous approach that
+ * loaded the full byte array and applied the AcroForm fixups. The forms are inflated with text pages to simulate
+ * large uploads. The allocation rates can be compared with the JMH gc profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RegistrationFormBenchmark {
+
+    @Param({"0", "500"})
+    private int additionalPages;
+
+    private final PdfContentMapper pdfContentMapper = new PdfContentMapperImpl();
+
+    private MultipartFile registrationForm;
+
+    private RegistrationFormService inMemoryService;
+
+    private RegistrationFormService tempFileService;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] form;
+        try (InputStream input = getClass().getResourceAsStream("/organisations/merlotRegistrationForm_MERLOT.pdf")) {
+            form = input.readAllBytes();
+        }
+        try (PDDocument pdDoc = Loader.loadPDF(form)) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 0; i < additionalPages; i++) {
+                PDPage page = new PDPage();
+                pdDoc.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdDoc, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(50, 700);
+                    content.showText("Attachment page " + i + " ".repeat(20) + "x".repeat(400));
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            pdDoc.save(output);
+            registrationForm = new ByteArrayMultipartFile(output.toByteArray());
+        }
+        inMemoryService = new RegistrationFormService(pdfContentMapper, DataSize.ofMegabytes(64));
+        tempFileService = new RegistrationFormService(pdfContentMapper, DataSize.ofBytes(1));
+    }
+
+    @Benchmark
+    public RegistrationFormContent readInMemory() throws IOException {
+        return inMemoryService.readRegistrationForm(registrationForm);
+    }
+
+    @Benchmark
+    public RegistrationFormContent readFromTempFile() throws IOException {
+        return tempFileService.readRegistrationForm(registrationForm);
+    }
+
+    @Benchmark
+    public RegistrationFormContent readBaseline() throws IOException {
+        try (PDDocument pdDoc = Loader.loadPDF(registrationForm.getBytes())) {
+            return pdfContentMapper.getRegistrationFormContentFromRegistrationForm(
+                    pdDoc.getDocumentCatalog().getAcroForm());
+        }
+    }
+
+    private record ByteArrayMultipartFile(byte[] content) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "registrationForm.pdf";
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/pdf";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content.clone();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), content);
+        }
+    }
+}
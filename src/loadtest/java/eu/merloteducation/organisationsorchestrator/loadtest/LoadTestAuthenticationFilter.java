@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Authenticates load test requests by the roles given in a header instead of a signed token, so that no identity
+ * provider is needed. Runs in front of the security filter chain, which picks the authentication up from the request.
+ */
+public class LoadTestAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String ROLES_HEADER = "X-Load-Test-Roles";
+
+    private final RequestAttributeSecurityContextRepository securityContextRepository =
+            new RequestAttributeSecurityContextRepository();
+
+    @Override
+    protected void doFilterInternal(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                    @NotNull FilterChain filterChain) throws ServletException, IOException {
+        String roles = request.getHeader(ROLES_HEADER);
+        if (roles != null && !roles.isBlank()) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (String role : roles.split(",")) {
+                authorities.add(new OrganizationRoleGrantedAuthority(role.trim()));
+            }
+            Jwt jwt = Jwt.withTokenValue("loadtest")
+                    .header("alg", "none")
+                    .subject("loadtest")
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build();
+            SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+            securityContext.setAuthentication(new JwtAuthenticationToken(jwt, authorities));
+            securityContextRepository.saveContext(securityContext, request, response);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
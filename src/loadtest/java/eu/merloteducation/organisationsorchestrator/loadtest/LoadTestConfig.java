@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import eu.merloteducation.organisationsorchestrator.repositories.OrganizationMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Additions to the application context under load test: the participants are stored before the initial data import
+ * runs, which then finds them in the catalog stand-in and skips, and requests are authenticated by header.
+ */
+@Configuration
+@Profile("loadtest")
+@Slf4j
+public class LoadTestConfig {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public ApplicationRunner loadTestDataSeeder(LoadTestData loadTestData,
+                                                OrganizationMetadataRepository organizationMetadataRepository) {
+        return args -> {
+            organizationMetadataRepository.saveAll(loadTestData.createMetadata());
+            log.info("Stored metadata of {} participants", loadTestData.getParticipantIds().size());
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<LoadTestAuthenticationFilter> loadTestAuthenticationFilter() {
+        FilterRegistrationBean<LoadTestAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new LoadTestAuthenticationFilter());
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
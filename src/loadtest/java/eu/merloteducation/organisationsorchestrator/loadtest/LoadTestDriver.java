@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import eu.merloteducation.modelslib.queue.ConnectorDetailsRequest;
+import eu.merloteducation.organisationsorchestrator.service.MessageQueueService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the workload mix from a fixed number of concurrent clients, each sending its next request as soon as the
+ * previous one was answered, and records the latency of every request per workload.
+ * Connector requests are passed to the message bus listener directly, no broker is involved.
+ */
+@Slf4j
+public class LoadTestDriver {
+
+    private static final String TIMER_NAME = "loadtest.requests";
+
+    private static final String ERROR_COUNTER_NAME = "loadtest.errors";
+
+    private static final int PAGE_SIZE = 9;
+
+    private final LoadTestSettings settings;
+
+    private final LoadTestData data;
+
+    private final String applicationUri;
+
+    private final MessageQueueService messageQueueService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Map<Workload, Timer> timers = new EnumMap<>(Workload.class);
+
+    private final Map<Workload, Counter> errorCounters = new EnumMap<>(Workload.class);
+
+    // only the first failure of each workload is logged, the others are counted
+    private final Set<Workload> loggedFailures = Collections.synchronizedSet(EnumSet.noneOf(Workload.class));
+
+    private final AtomicInteger updateCount = new AtomicInteger();
+
+    private volatile boolean recording;
+
+    public LoadTestDriver(LoadTestSettings settings, LoadTestData data, String applicationUri,
+                          MessageQueueService messageQueueService) {
+        this.settings = settings;
+        this.data = data;
+        this.applicationUri = applicationUri;
+        this.messageQueueService = messageQueueService;
+        for (Workload workload : Workload.values()) {
+            timers.put(workload, Timer.builder(TIMER_NAME)
+                    .tag("workload", workload.getName())
+                    .publishPercentiles(0.5, 0.99)
+                    // keep all samples of the run in a single histogram
+                    .distributionStatisticExpiry(Duration.ofDays(1))
+                    .distributionStatisticBufferLength(1)
+                    .register(meterRegistry));
+            errorCounters.put(workload, Counter.builder(ERROR_COUNTER_NAME)
+                    .tag("workload", workload.getName())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Send requests during warmup and measurement and return the results of the measurement.
+     *
+     * @return results per workload
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public LoadTestResult run() throws InterruptedException {
+        List<Workload> workloads = new ArrayList<>(settings.mix().keySet());
+        int[] cumulativeWeights = new int[workloads.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < workloads.size(); i++) {
+            totalWeight += settings.mix().get(workloads.get(i));
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        log.info("Warming up for {} with {} clients", settings.warmup(), settings.concurrency());
+        long measurementStart = System.nanoTime() + settings.warmup().toNanos();
+        long measurementEnd = measurementStart + settings.duration().toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency());
+        int weightSum = totalWeight;
+        for (int i = 0; i < settings.concurrency(); i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < measurementEnd) {
+                    int draw = ThreadLocalRandom.current().nextInt(weightSum);
+                    int index = 0;
+                    while (draw >= cumulativeWeights[index]) {
+                        index++;
+                    }
+                    runWorkload(workloads.get(index));
+                }
+            });
+        }
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(measurementStart - System.nanoTime(), 0));
+        recording = true;
+        log.info("Measuring for {}", settings.duration());
+        clients.shutdown();
+        if (!clients.awaitTermination(settings.duration().toSeconds() + 300, TimeUnit.SECONDS)) {
+            clients.shutdownNow();
+        }
+        recording = false;
+
+        List<LoadTestResult.Row> rows = new ArrayList<>();
+        for (Workload workload : workloads) {
+            rows.add(LoadTestResult.Row.of(workload, timers.get(workload), errorCounters.get(workload),
+                    settings.duration()));
+        }
+        return new LoadTestResult(settings, rows);
+    }
+
+    private void runWorkload(Workload workload) {
+        String participantId = randomParticipantId();
+        // participants act as representatives of their own organization as in the frontend
+        String role = "OrgLegRep_" + participantId;
+        long workloadStart = System.nanoTime();
+        try {
+            switch (workload) {
+                case LISTING -> {
+                    int pages = (data.getParticipantIds().size() + PAGE_SIZE - 1) / PAGE_SIZE;
+                    int page = ThreadLocalRandom.current().nextInt(pages);
+                    send(workload, request("/?page=" + page + "&size=" + PAGE_SIZE, role).GET().build());
+                }
+                case DETAIL -> send(workload, request("/organization/" + participantId, role).GET().build());
+                case UPDATE -> {
+                    String participant = send(Workload.DETAIL,
+                            request("/organization/" + participantId, role).GET().build());
+                    if (participant == null) {
+                        return;
+                    }
+                    ObjectNode participantWithEdits = (ObjectNode) objectMapper.readTree(participant);
+                    ((ObjectNode) participantWithEdits.get("metadata"))
+                            .put("mailAddress", "admin" + updateCount.incrementAndGet() + "@example.com");
+                    send(workload, request("/organization", role)
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(participantWithEdits)))
+                            .build());
+                }
+                case CONNECTOR -> {
+                    List<String> connectorIds = data.getConnectorIds();
+                    String connectorId = connectorIds.get(ThreadLocalRandom.current().nextInt(connectorIds.size()));
+                    long start = System.nanoTime();
+                    boolean success = messageQueueService.organizationConnectorRequest(
+                            new ConnectorDetailsRequest(connectorId, participantId)) != null;
+                    record(workload, start, success, "no connector " + connectorId + " of " + participantId);
+                }
+            }
+        } catch (IOException e) {
+            record(workload, workloadStart, false, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String role) {
+        return HttpRequest.newBuilder(URI.create(applicationUri + path))
+                .timeout(Duration.ofSeconds(60))
+                .header(LoadTestAuthenticationFilter.ROLES_HEADER, role)
+                .header("Active-Role", role);
+    }
+
+    private String send(Workload workload, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        boolean success = response.statusCode() / 100 == 2;
+        record(workload, start, success, response.statusCode() + " " + response.body());
+        return success ? response.body() : null;
+    }
+
+    private void record(Workload workload, long start, boolean success, String failure) {
+        if (!recording) {
+            return;
+        }
+        timers.get(workload).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!success) {
+            errorCounters.get(workload).increment();
+            if (loggedFailures.add(workload)) {
+                log.warn("First failed {} request: {}", workload.getName(), failure);
+            }
+        }
+    }
+
+    private String randomParticipantId() {
+        List<String> participantIds = data.getParticipantIds();
+        return participantIds.get(ThreadLocalRandom.current().nextInt(participantIds.size()));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and throughput per workload measured by a load test run.
+ *
+ * @param settings settings of the run
+ * @param rows results per workload
+ */
+public record LoadTestResult(LoadTestSettings settings, List<Row> rows) {
+
+    private static final String CSV_HEADER = "workload,requests,errors,throughput_per_second,p50_ms,p99_ms,max_ms";
+
+    /**
+     * Print the results as table.
+     *
+     * @param out stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%nLoad test with %d clients and %d participants, measured for %s%n",
+                settings.concurrency(), settings.participants(), settings.duration());
+        out.printf(Locale.ROOT, "%-10s %10s %8s %12s %10s %10s %10s%n",
+                "workload", "requests", "errors", "requests/s", "p50 ms", "p99 ms", "max ms");
+        for (Row row : rows) {
+            out.printf(Locale.ROOT, "%-10s %10d %8d %12.1f %10.1f %10.1f %10.1f%n", row.workload().getName(),
+                    row.requests(), row.errors(), row.throughput(), row.p50Millis(), row.p99Millis(), row.maxMillis());
+        }
+    }
+
+    /**
+     * Write the results as CSV, e.g. to compare them with the results of the previous release.
+     *
+     * @param file file to write to
+     * @throws IOException if the file could not be written
+     */
+    public void writeCsv(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (Row row : rows) {
+            lines.add(String.format(Locale.ROOT, "%s,%d,%d,%.2f,%.2f,%.2f,%.2f", row.workload().getName(),
+                    row.requests(), row.errors(), row.throughput(), row.p50Millis(), row.p99Millis(), row.maxMillis()));
+        }
+        Files.write(file, lines);
+    }
+
+    /**
+     * Result of a single workload.
+     */
+    public record Row(Workload workload, long requests, long errors, double throughput, double p50Millis,
+                      double p99Millis, double maxMillis) {
+
+        static Row of(Workload workload, Timer timer, Counter errorCounter, Duration duration) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            double p50 = 0;
+            double p99 = 0;
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                if (percentile.percentile() == 0.5) {
+                    p50 = percentile.value(TimeUnit.MILLISECONDS);
+                } else if (percentile.percentile() == 0.99) {
+                    p99 = percentile.value(TimeUnit.MILLISECONDS);
+                }
+            }
+            return new Row(workload, snapshot.count(), (long) errorCounter.count(),
+                    snapshot.count() / (duration.toMillis() / 1000.0), p50, p99, snapshot.max(TimeUnit.MILLISECONDS));
+        }
+    }
+}
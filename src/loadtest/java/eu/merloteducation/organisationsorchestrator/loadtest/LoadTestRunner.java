@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import eu.merloteducation.organisationsorchestrator.OrganisationsOrchestratorApplication;
+import eu.merloteducation.organisationsorchestrator.service.MessageQueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application against the stand-in services, drives the configured workload mix and reports latency and
+ * throughput per workload. Run with: mvn -P loadtest compile exec:exec [-Dloadtest.duration=PT5M ...]
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools would restart the application in a separate class loader and run this method again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        LoadTestData data = new LoadTestData(settings.participants(), settings.connectorsPerParticipant());
+
+        try (StandInServer standInServer = StandInServer.start(data, settings);
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                     OrganisationsOrchestratorApplication.class, LoadTestConfig.class)
+                     .profiles("loadtest")
+                     .initializers(applicationContext -> applicationContext.getBeanFactory()
+                             .registerSingleton("loadTestData", data))
+                     .run(getApplicationArguments(standInServer, args))) {
+
+            String applicationUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+            LoadTestDriver driver = new LoadTestDriver(settings, data, applicationUri,
+                    context.getBean(MessageQueueService.class));
+
+            LoadTestResult result = driver.run();
+            result.print(System.out);
+            if (settings.report() != null) {
+                result.writeCsv(settings.report());
+                log.info("Wrote report to {}", settings.report());
+            }
+        }
+    }
+
+    private static String[] getApplicationArguments(StandInServer standInServer, String[] args) {
+        Map<String, Object> properties = new HashMap<>(standInServer.getApplicationProperties());
+        properties.put("server.port", 0);
+        // the actuator endpoints are not used by the load test, so no management server is started
+        properties.put("management.server.port", -1);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        properties.put("logging.level.org.springframework.security", "INFO");
+        // no broker is started, connector requests are passed to the listener directly
+        properties.put("spring.rabbitmq.listener.simple.auto-startup", false);
+        properties.put("spring.cloud.bus.enabled", false);
+        properties.put("messaging.queue-metrics.refresh-cron", "-");
+        properties.put("merlot-domain", "localhost");
+        properties.put("merlot-federation-did", LoadTestData.MERLOT_FEDERATION_DID);
+
+        // passed as command line arguments, as these take precedence over the application.yml
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((key, value) -> arguments.add("--" + key + "=" + value));
+        arguments.addAll(List.of(args));
+        return arguments.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from system properties prefixed with "loadtest.".
+ *
+ * @param participants number of participants in the catalog and the database
+ * @param connectorsPerParticipant number of connectors of every participant
+ * @param concurrency number of concurrent clients
+ * @param warmup time during which requests are sent but not recorded
+ * @param duration time during which requests are recorded
+ * @param mix relative weights of the workloads
+ * @param catalogLatency added latency of every catalog and keycloak response
+ * @param wizardLatency added latency of every wizard API response
+ * @param dapsLatency added latency of every DAPS response
+ * @param report file to write the report to as CSV, null to only print it
+ */
+public record LoadTestSettings(int participants, int connectorsPerParticipant, int concurrency, Duration warmup,
+                               Duration duration, Map<Workload, Integer> mix, Duration catalogLatency,
+                               Duration wizardLatency, Duration dapsLatency, Path report) {
+
+    /**
+     * Return the settings given as system properties, using defaults for the missing ones.
+     *
+     * @return load test settings
+     */
+    public static LoadTestSettings fromSystemProperties() {
+        String report = System.getProperty("loadtest.report", "");
+        return new LoadTestSettings(
+                Integer.parseInt(System.getProperty("loadtest.participants", "200")),
+                Integer.parseInt(System.getProperty("loadtest.connectors-per-participant", "2")),
+                Integer.parseInt(System.getProperty("loadtest.concurrency", "32")),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT15S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT60S")),
+                parseMix(System.getProperty("loadtest.mix", "listing=50,detail=30,update=5,connector=15")),
+                Duration.parse(System.getProperty("loadtest.catalog-latency", "PT0.05S")),
+                Duration.parse(System.getProperty("loadtest.wizard-latency", "PT0.05S")),
+                Duration.parse(System.getProperty("loadtest.daps-latency", "PT0.1S")),
+                report.isBlank() ? null : Path.of(report));
+    }
+
+    private static Map<Workload, Integer> parseMix(String mix) {
+        Map<Workload, Integer> weights = new EnumMap<>(Workload.class);
+        for (String entry : mix.split(",")) {
+            String[] keyValue = entry.split("=");
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Invalid workload mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(keyValue[1].trim());
+            if (weight > 0) {
+                weights.put(Workload.fromName(keyValue[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Workload mix must contain at least one workload with positive weight.");
+        }
+        return weights;
+    }
+}
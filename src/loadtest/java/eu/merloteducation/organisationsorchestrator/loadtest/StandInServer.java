@@ -0,0 +1,309 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import eu.merloteducation.gxfscataloglibrary.models.participants.ParticipantItem;
+import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryLegalNameItem;
+import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryUriItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionMeta;
+import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process HTTP stand-in for the services the application calls: the XFSC Federated Catalogue including its
+ * Keycloak, the wizard API and DAPS. Every response is delayed by the configured latency of the service.
+ * Responses are built from the models of the catalog library, so they are read by the application as usual.
+ */
+@Slf4j
+public class StandInServer implements AutoCloseable {
+
+    private static final Pattern SKIP_PATTERN = Pattern.compile("(?i)skip\\D{0,5}(\\d+)");
+
+    private static final Pattern LIMIT_PATTERN = Pattern.compile("(?i)limit\\D{0,5}(\\d+)");
+
+    private static final Pattern DID_PATTERN = Pattern.compile("did:web:[^\"'\\s\\\\#]+");
+
+    private final LoadTestData data;
+
+    private final LoadTestSettings settings;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final HttpServer server;
+
+    private StandInServer(LoadTestData data, LoadTestSettings settings) throws IOException {
+        this.data = data;
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/catalog", this::handleCatalog);
+        server.createContext("/keycloak", this::handleKeycloak);
+        server.createContext("/wizard", this::handleWizard);
+        server.createContext("/daps", this::handleDaps);
+        // responses are delayed by sleeping, so every request gets its own thread
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Given the participants to serve, start the stand-in on a free local port.
+     *
+     * @param data participants known to the catalog
+     * @param settings load test settings containing the latencies
+     * @return running stand-in
+     * @throws IOException if the server could not be started
+     */
+    public static StandInServer start(LoadTestData data, LoadTestSettings settings) throws IOException {
+        StandInServer standInServer = new StandInServer(data, settings);
+        standInServer.server.start();
+        log.info("Stand-in services listening on {}", standInServer.getBaseUri());
+        return standInServer;
+    }
+
+    public String getBaseUri() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Return the application properties pointing the application to the stand-in services.
+     *
+     * @return application properties
+     */
+    public Map<String, Object> getApplicationProperties() {
+        String baseUri = getBaseUri();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("gxfscatalog.base-uri", baseUri + "/catalog");
+        properties.put("keycloak.base-uri", baseUri + "/keycloak");
+        properties.put("gxfswizardapi.base-uri", baseUri + "/wizard");
+        properties.put("daps-server.base-uri", baseUri + "/daps");
+        properties.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", baseUri + "/keycloak/certs");
+        return properties;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleCatalog(HttpExchange exchange) throws IOException {
+        delay(settings.catalogLatency());
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath().substring("/catalog".length());
+
+        if (method.equals("POST") && path.equals("/query")) {
+            handleQuery(exchange);
+        } else if (method.equals("GET") && path.equals("/self-descriptions")) {
+            handleGetSelfDescriptions(exchange);
+        } else if (method.equals("GET") && path.startsWith("/participants/")) {
+            String id = URLDecoder.decode(path.substring("/participants/".length()), StandardCharsets.UTF_8);
+            ExtendedVerifiablePresentation selfDescription = data.getSelfDescription(id);
+            if (selfDescription == null) {
+                sendJson(exchange, 404, Map.of("message", "Participant not found"));
+            } else {
+                sendJson(exchange, 200, toParticipantItem(id, selfDescription));
+            }
+        } else if (method.equals("PUT") && path.startsWith("/participants/")) {
+            String id = URLDecoder.decode(path.substring("/participants/".length()), StandardCharsets.UTF_8);
+            ExtendedVerifiablePresentation selfDescription = objectMapper.readValue(exchange.getRequestBody(),
+                    ExtendedVerifiablePresentation.class);
+            data.putSelfDescription(id, selfDescription);
+            sendJson(exchange, 200, toParticipantItem(id, selfDescription));
+        } else if (path.startsWith("/self-descriptions/")) {
+            // revocation and deletion of outdated self-descriptions by the cleanup
+            sendJson(exchange, 200, Map.of());
+        } else {
+            sendUnknown(exchange);
+        }
+    }
+
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        if (body.contains("legalName")) {
+            GXFSCatalogListResponse<GXFSQueryLegalNameItem> response = new GXFSCatalogListResponse<>();
+            List<GXFSQueryLegalNameItem> items = new ArrayList<>();
+            Matcher didMatcher = DID_PATTERN.matcher(body);
+            if (didMatcher.find() && data.getLegalName(didMatcher.group()) != null) {
+                GXFSQueryLegalNameItem item = new GXFSQueryLegalNameItem();
+                item.setLegalName(data.getLegalName(didMatcher.group()));
+                items.add(item);
+            }
+            response.setTotalCount(items.size());
+            response.setItems(items);
+            sendJson(exchange, 200, response);
+            return;
+        }
+
+        // page of participant uris, the real catalog takes offset and size from the statement
+        List<String> participantIds = data.getParticipantIds();
+        int skip = findNumber(SKIP_PATTERN, body, 0);
+        int limit = findNumber(LIMIT_PATTERN, body, participantIds.size());
+        List<GXFSQueryUriItem> items = new ArrayList<>();
+        for (String id : participantIds.subList(Math.min(skip, participantIds.size()),
+                Math.min(skip + limit, participantIds.size()))) {
+            GXFSQueryUriItem item = new GXFSQueryUriItem();
+            item.setUri(id);
+            items.add(item);
+        }
+        GXFSCatalogListResponse<GXFSQueryUriItem> response = new GXFSCatalogListResponse<>();
+        response.setTotalCount(participantIds.size());
+        response.setItems(items);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleGetSelfDescriptions(HttpExchange exchange) throws IOException {
+        List<SelfDescriptionItem> items = new ArrayList<>();
+        for (String id : getQueryValues(exchange, "ids")) {
+            ExtendedVerifiablePresentation selfDescription = data.getSelfDescription(id);
+            if (selfDescription != null) {
+                SelfDescriptionMeta meta = new SelfDescriptionMeta();
+                meta.setSubjectId(id);
+                meta.setStatus("active");
+                // a new self-description instance is stored on every update, which is all a hash has to reflect here
+                meta.setSdHash(Integer.toHexString(System.identityHashCode(selfDescription)));
+                meta.setContent(selfDescription);
+                SelfDescriptionItem item = new SelfDescriptionItem();
+                item.setMeta(meta);
+                items.add(item);
+            }
+        }
+        GXFSCatalogListResponse<SelfDescriptionItem> response = new GXFSCatalogListResponse<>();
+        response.setTotalCount(items.size());
+        response.setItems(items);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleKeycloak(HttpExchange exchange) throws IOException {
+        delay(settings.catalogLatency());
+        String path = exchange.getRequestURI().getPath();
+        exchange.getRequestBody().readAllBytes();
+
+        if (path.endsWith("/token")) {
+            sendJson(exchange, 200, Map.of(
+                    "access_token", "loadtest",
+                    "refresh_token", "loadtest",
+                    "token_type", "Bearer",
+                    "expires_in", 3600,
+                    "refresh_expires_in", 3600));
+        } else if (path.endsWith("/certs")) {
+            sendJson(exchange, 200, Map.of("keys", List.of()));
+        } else {
+            sendUnknown(exchange);
+        }
+    }
+
+    private void handleWizard(HttpExchange exchange) throws IOException {
+        delay(settings.wizardLatency());
+        if (exchange.getRequestMethod().equals("GET")) {
+            sendJson(exchange, 200, Map.of());
+        } else {
+            sendUnknown(exchange);
+        }
+    }
+
+    private void handleDaps(HttpExchange exchange) throws IOException {
+        delay(settings.dapsLatency());
+        exchange.getRequestBody().readAllBytes();
+
+        if (exchange.getRequestMethod().equals("POST") && exchange.getRequestURI().getPath().endsWith("/add")) {
+            OmejdnConnectorCertificateDto certificate = new OmejdnConnectorCertificateDto();
+            certificate.setClientId("12:34:56");
+            certificate.setClientName(UUID.randomUUID().toString());
+            certificate.setKeystore("k".repeat(4096));
+            certificate.setPassword("password1234");
+            sendJson(exchange, 200, certificate);
+        } else {
+            sendUnknown(exchange);
+        }
+    }
+
+    private ParticipantItem toParticipantItem(String id, ExtendedVerifiablePresentation selfDescription) {
+        ParticipantItem item = new ParticipantItem();
+        item.setId(id);
+        item.setName(data.getLegalName(id));
+        item.setSelfDescription(selfDescription);
+        return item;
+    }
+
+    private List<String> getQueryValues(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        List<String> values = new ArrayList<>();
+        if (query == null) {
+            return values;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+                String value = URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+                values.addAll(Arrays.asList(value.split(",")));
+            }
+        }
+        return values;
+    }
+
+    private int findNumber(Pattern pattern, String text, int defaultValue) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : defaultValue;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private void sendUnknown(HttpExchange exchange) throws IOException {
+        // the routes follow the public APIs of the services, log what the application asked for if one is missing
+        log.warn("Stand-in has no route for {} {}", exchange.getRequestMethod(), exchange.getRequestURI());
+        sendJson(exchange, 404, Map.of("message", "Not found"));
+    }
+
+    private void delay(Duration latency) {
+        if (latency.isZero() || latency.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
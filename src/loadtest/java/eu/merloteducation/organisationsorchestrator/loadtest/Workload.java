@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Kinds of requests the load test sends, each reported separately.
+ */
+public enum Workload {
+
+    /**
+     * Page of participants as shown in the participant overview.
+     */
+    LISTING("listing"),
+
+    /**
+     * Single participant as shown in the participant details.
+     */
+    DETAIL("detail"),
+
+    /**
+     * Edit of a participant by its representative, preceded by loading its details.
+     */
+    UPDATE("update"),
+
+    /**
+     * Connector details requested by the contract orchestrator over the message bus.
+     */
+    CONNECTOR("connector");
+
+    private final String name;
+
+    Workload(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Given a workload name as used in the settings, return the workload.
+     *
+     * @param name workload name
+     * @return workload
+     */
+    public static Workload fromName(String name) {
+        return Arrays.stream(values())
+                .filter(workload -> workload.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown workload: " + name));
+    }
+}
@@ -18,8 +18,10 @@ package eu.merloteducation.organisationsorchestrator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OrganisationsOrchestratorApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(OrganisationsOrchestratorApplication.class, args);
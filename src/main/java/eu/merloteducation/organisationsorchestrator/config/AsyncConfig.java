@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String CATALOG_TASK_EXECUTOR = "catalogTaskExecutor";
+
+    public static final String ONBOARDING_TASK_EXECUTOR = "onboardingTaskExecutor";
+
+    @Value("${async.catalog.core-pool-size:4}")
+    private int catalogCorePoolSize;
+
+    @Value("${async.catalog.max-pool-size:8}")
+    private int catalogMaxPoolSize;
+
+    @Value("${async.catalog.queue-capacity:500}")
+    private int catalogQueueCapacity;
+
+    @Value("${async.onboarding.pool-size:4}")
+    private int onboardingPoolSize;
+
+    @Value("${async.onboarding.queue-capacity:1000}")
+    private int onboardingQueueCapacity;
+
+    @Bean(name = CATALOG_TASK_EXECUTOR)
+    public TaskExecutor catalogTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(catalogCorePoolSize);
+        executor.setMaxPoolSize(catalogMaxPoolSize);
+        executor.setQueueCapacity(catalogQueueCapacity);
+        executor.setThreadNamePrefix("catalog-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = ONBOARDING_TASK_EXECUTOR)
+    public TaskExecutor onboardingTaskExecutor() {
+        // bounds the concurrent DID, DAPS and catalog calls of bulk onboarding requests
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(onboardingPoolSize);
+        executor.setMaxPoolSize(onboardingPoolSize);
+        executor.setQueueCapacity(onboardingQueueCapacity);
+        executor.setThreadNamePrefix("onboarding-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.config;
+
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AopConfigException;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@Slf4j
+public class CatalogMetricsConfig {
+
+    public static final String CATALOG_TIMER = "gxfs.catalog.requests";
+
+    /**
+     * Wrap the catalog service of the gxfs catalog library so that every call made by this service is timed,
+     * tagged with the called method, the outcome and the exception if any.
+     *
+     * @param meterRegistry registry to record the timers in, resolved lazily on each call
+     * @return post processor wrapping the catalog service
+     */
+    @Bean
+    public static BeanPostProcessor catalogMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof GxfsCatalogService)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> timeCatalogCall(meterRegistry, invocation));
+                try {
+                    return proxyFactory.getProxy(bean.getClass().getClassLoader());
+                } catch (AopConfigException e) {
+                    log.warn("Catalog requests will not be timed: {}", e.getMessage());
+                    return bean;
+                }
+            }
+        };
+    }
+
+    private static Object timeCatalogCall(ObjectProvider<MeterRegistry> meterRegistry, MethodInvocation invocation)
+            throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return invocation.proceed();
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                Timer.builder(CATALOG_TIMER)
+                        .description("Requests to the GXFS catalog")
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("outcome", failure == null ? "SUCCESS" : "ERROR")
+                        .tag("exception", failure == null ? "none" : failure.getClass().getSimpleName())
+                        .register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
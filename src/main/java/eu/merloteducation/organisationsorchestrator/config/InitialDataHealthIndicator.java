@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.config;
+
+import eu.merloteducation.organisationsorchestrator.models.InitialDataImportStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+public class InitialDataHealthIndicator implements HealthIndicator {
+
+    private final InitialDataLoader initialDataLoader;
+
+    public InitialDataHealthIndicator(@Autowired InitialDataLoader initialDataLoader) {
+        this.initialDataLoader = initialDataLoader;
+    }
+
+    @Override
+    public Health health() {
+        InitialDataImportStatus status = initialDataLoader.getStatus();
+        // the service is usable while the import is running or if it failed, so this only reports the progress
+        return Health.up()
+                .withDetail("state", status.getState())
+                .withDetail("totalOrganisations", status.getTotalOrganisations())
+                .withDetail("importedOrganisations", status.getImportedOrganisations())
+                .withDetail("failedOrganisations", status.getFailedOrganisations())
+                .build();
+    }
+}
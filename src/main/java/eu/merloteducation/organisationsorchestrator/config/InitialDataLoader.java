@@ -17,25 +17,49 @@
 package eu.merloteducation.organisationsorchestrator.config;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.merloteducation.authorizationlibrary.authorization.OrganizationRole;
 import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import eu.merloteducation.modelslib.api.did.ParticipantDidPrivateKeyDto;
 import eu.merloteducation.modelslib.api.organization.MembershipClass;
 import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateDto;
 import eu.merloteducation.organisationsorchestrator.controller.OrganizationQueryController;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
+import eu.merloteducation.organisationsorchestrator.models.InitialDataImportStatus;
+import eu.merloteducation.organisationsorchestrator.models.entities.InitialDataImportCompletion;
+import eu.merloteducation.organisationsorchestrator.models.entities.InitialDataImportEntry;
 import eu.merloteducation.organisationsorchestrator.models.exceptions.NoInitDataException;
+import eu.merloteducation.organisationsorchestrator.repositories.InitialDataImportCompletionRepository;
+import eu.merloteducation.organisationsorchestrator.repositories.InitialDataImportEntryRepository;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantCreationProgress;
 import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
+import eu.merloteducation.organisationsorchestrator.service.TokenBucketRateLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 @Slf4j
@@ -44,21 +68,51 @@ public class InitialDataLoader implements CommandLineRunner {
     private static final String MERLOT_FED_DOC_FILENAME = "merlotRegistrationForm_MERLOT.pdf";
     private final OrganizationQueryController organizationQueryController;
     private final ParticipantService participantService;
+    private final RegistrationFormService registrationFormService;
+    private final ObjectMapper objectMapper;
+    // records per registration form which steps are done, so that a restarted import resumes where it stopped
+    private final InitialDataImportEntryRepository importLedgerRepository;
+    // steps are recorded while the participant is created, they must survive a rollback of the creation
+    private final TransactionTemplate ledgerTransactionTemplate;
+    // records that the import finished without failures, so that restarts do not look at the ledger again
+    private final InitialDataImportCompletionRepository importCompletionRepository;
     private File initialFederatorsFolder;
     private File initialParticipantsFolder;
     private File merlotFederationRegistrationFormFile;
     private final String merlotFederationDid;
-    private final int delayUpdateTime;
-    private static final String DELAY_UPDATE_MSG = "Delaying update to avoid clearing house rate limiting...";
+    private final int parallelism;
+    // spaces the clearing house calls by the configured delay, null if they are not limited
+    private final TokenBucketRateLimiter clearingHouseRateLimiter;
+    // the import runs in the background so that startup and readiness do not wait for it
+    private final TaskExecutor importExecutor = new SimpleAsyncTaskExecutor("init-data-");
+
+    private volatile InitialDataImportStatus.State state = InitialDataImportStatus.State.PENDING;
+    private volatile int totalOrganisations;
+    private final AtomicInteger importedOrganisations = new AtomicInteger();
+    private final AtomicInteger failedOrganisations = new AtomicInteger();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
 
 
     public InitialDataLoader(@Autowired OrganizationQueryController organizationQueryController,
                              @Autowired ParticipantService participantService,
+                             @Autowired RegistrationFormService registrationFormService,
+                             @Autowired ObjectMapper objectMapper,
+                             @Autowired InitialDataImportEntryRepository importLedgerRepository,
+                             @Autowired InitialDataImportCompletionRepository importCompletionRepository,
+                             @Autowired PlatformTransactionManager transactionManager,
                              @Value("${init-data.organisations:#{null}}") File initialOrgasFolder,
                              @Value("${init-data.gxdch-delay:#{0}}") int delayUpdateTime,
+                             @Value("${init-data.parallelism:#{4}}") int parallelism,
                              @Value("${merlot-federation-did}") String merlotFederationDid) {
         this.organizationQueryController = organizationQueryController;
         this.participantService = participantService;
+        this.registrationFormService = registrationFormService;
+        this.objectMapper = objectMapper;
+        this.importLedgerRepository = importLedgerRepository;
+        this.importCompletionRepository = importCompletionRepository;
+        this.ledgerTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         for (File file : initialOrgasFolder.listFiles()) {
             if (!file.isFile() && file.getName().equals("federators")) {
                 this.initialFederatorsFolder = file;
@@ -68,23 +122,47 @@ public class InitialDataLoader implements CommandLineRunner {
                 this.merlotFederationRegistrationFormFile = file;
             }
         }
-        this.delayUpdateTime = delayUpdateTime;
+        this.parallelism = Math.max(parallelism, 1);
+        this.clearingHouseRateLimiter = delayUpdateTime > 0
+                ? new TokenBucketRateLimiter(1, 1000.0 / delayUpdateTime)
+                : null;
         this.merlotFederationDid = merlotFederationDid;
     }
 
 
     @Override
     public void run(String... args) {
+        importExecutor.execute(this::importInitialData);
+    }
+
+    /**
+     * Import the initial organisations if no organisations exist yet or a previous import did not complete,
+     * blocking until the import is done.
+     */
+    public void importInitialData() {
+        startedAt = Instant.now();
+        state = InitialDataImportStatus.State.RUNNING;
         try {
             // MERLOT federation
             OrganizationRoleGrantedAuthority merlotFederationRole
                     = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, merlotFederationDid);
 
-            if (!organizationQueryController.getAllOrganizations(0, 1, merlotFederationRole).getContent().isEmpty()) {
+            if (importCompletionRepository.existsById(merlotFederationDid)) {
+                log.info("Database will not be reinitialised since the initial data import was completed.");
+                finish(InitialDataImportStatus.State.SKIPPED);
+                return;
+            }
+
+            boolean resuming = importLedgerRepository.count() > 0;
+            if (!resuming
+                    && !organizationQueryController.getAllOrganizations(0, 1, merlotFederationRole).getContent().isEmpty()) {
                 log.info("Database will not be reinitialised since organisations exist.");
+                finish(InitialDataImportStatus.State.SKIPPED);
                 return;
             }
-            log.info("Initializing database since no organisations were found.");
+            log.info(resuming
+                    ? "Resuming initial data import from the import ledger."
+                    : "Initializing database since no organisations were found.");
 
             // onboard MERLOT federation first to get key for further signatures
             onboardMerlotFederation(merlotFederationRole);
@@ -92,59 +170,217 @@ public class InitialDataLoader implements CommandLineRunner {
             // onboard other organisations as role of MERLOT Federation
             onboardOtherOrganisations(merlotFederationRole);
 
+            if (failedOrganisations.get() > 0) {
+                finish(InitialDataImportStatus.State.FAILED);
+                return;
+            }
+            importCompletionRepository.save(new InitialDataImportCompletion(merlotFederationDid, Instant.now()));
+            finish(InitialDataImportStatus.State.COMPLETED);
         } catch (Exception e) {
             log.warn("Failed to import initial participant dataset. {}", e.getMessage());
+            finish(InitialDataImportStatus.State.FAILED);
         }
     }
 
-    private void onboardMerlotFederation(OrganizationRoleGrantedAuthority merlotFederationRole) throws JsonProcessingException {
+    /**
+     * Return the current progress of the initial data import.
+     *
+     * @return import status
+     */
+    public InitialDataImportStatus getStatus() {
+        return new InitialDataImportStatus(state, totalOrganisations, importedOrganisations.get(),
+                failedOrganisations.get(), startedAt, finishedAt);
+    }
+
+    private void finish(InitialDataImportStatus.State finalState) {
+        finishedAt = Instant.now();
+        state = finalState;
+    }
+
+    private void onboardMerlotFederation(OrganizationRoleGrantedAuthority merlotFederationRole) throws IOException {
         MultipartFile merlotFederationPdf = getMerlotFederationDocument();
-        // onboard merlot as merlot federation
-        MerlotParticipantDto participant = organizationQueryController
-                .createOrganization(new MultipartFile[]{merlotFederationPdf}, merlotFederationRole);
-        delayClearingHouse();
-
-        // set federator role for MERLOT federation
-        participant.getMetadata().setMembershipClass(MembershipClass.FEDERATOR);
-        // update membership class for this initial orga using service as federators cannot edit themselves
-        participantService.updateParticipant(participant, merlotFederationRole);
-        delayClearingHouse();
+        // onboard merlot as merlot federation and set federator role for it
+        importOrganisationDocument(merlotFederationRole, merlotFederationPdf, true, true);
     }
 
-    private void onboardOtherOrganisations(OrganizationRoleGrantedAuthority merlotFederationRole) throws JsonProcessingException {
+    private void onboardOtherOrganisations(OrganizationRoleGrantedAuthority merlotFederationRole) {
         List<MultipartFile> participantPdfs = getOrganisationDocuments(initialParticipantsFolder);
         List<MultipartFile> federatorPdfs = getOrganisationDocuments(initialFederatorsFolder);
 
-        for (MultipartFile orgaPdf : participantPdfs) {
-            importOrganisation(merlotFederationRole, orgaPdf, false);
-        }
+        totalOrganisations = participantPdfs.size() + federatorPdfs.size();
 
-        for (MultipartFile orgaPdf : federatorPdfs) {
-            importOrganisation(merlotFederationRole, orgaPdf, true);
+        // the organisations are independent of each other, only the clearing house calls are throttled
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, totalOrganisations));
+        try {
+            List<CompletableFuture<Void>> imports = new ArrayList<>();
+            for (MultipartFile orgaPdf : participantPdfs) {
+                imports.add(CompletableFuture.runAsync(
+                        () -> importOrganisation(merlotFederationRole, orgaPdf, false), executor));
+            }
+            for (MultipartFile orgaPdf : federatorPdfs) {
+                imports.add(CompletableFuture.runAsync(
+                        () -> importOrganisation(merlotFederationRole, orgaPdf, true), executor));
+            }
+            CompletableFuture.allOf(imports.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
         }
+
+        log.info("Finished importing initial organisations: {} imported, {} failed.",
+                importedOrganisations.get(), failedOrganisations.get());
     }
 
     private void importOrganisation(OrganizationRoleGrantedAuthority merlotFederationRole,
                                     MultipartFile orgaPdf,
-                                    boolean isFederator) throws JsonProcessingException {
-        MerlotParticipantDto participant = organizationQueryController
-                .createOrganization(new MultipartFile[]{orgaPdf}, merlotFederationRole);
+                                    boolean isFederator) {
+        try {
+            String participantId = importOrganisationDocument(merlotFederationRole, orgaPdf, isFederator, false);
+
+            log.info("Imported initial organisation {} ({}/{})", participantId,
+                    importedOrganisations.incrementAndGet() + failedOrganisations.get(), totalOrganisations);
+        } catch (Exception e) {
+            log.warn("Failed to import initial organisation ({}/{}): {}",
+                    importedOrganisations.get() + failedOrganisations.incrementAndGet(), totalOrganisations,
+                    e.getMessage());
+        }
+    }
 
-        delayClearingHouse();
+    private String importOrganisationDocument(OrganizationRoleGrantedAuthority merlotFederationRole,
+                                              MultipartFile orgaPdf,
+                                              boolean isFederator,
+                                              boolean isMerlotFederation) throws IOException {
+        String fileHash = getFileHash(orgaPdf);
+        InitialDataImportEntry entry = importLedgerRepository.findById(fileHash).orElse(null);
+        if (entry != null && entry.getStep() == InitialDataImportEntry.Step.COMPLETED) {
+            log.info("Initial organisation {} from {} was already imported.", entry.getParticipantId(),
+                    orgaPdf.getOriginalFilename());
+            return entry.getParticipantId();
+        }
+
+        MerlotParticipantDto participant;
+        if (entry == null || entry.getStep().compareTo(InitialDataImportEntry.Step.CREATED) < 0) {
+            // a DID or DAPS certificate issued before a restart is reused instead of requesting a new one
+            LedgerCreationProgress progress = new LedgerCreationProgress(fileHash, orgaPdf.getOriginalFilename(), entry);
+            awaitClearingHouse();
+            participant = participantService.createParticipant(registrationFormService.readRegistrationForm(orgaPdf),
+                    merlotFederationRole, progress);
+            entry = progress.recordCreated(participant.getId());
+        } else {
+            // created before a restart, so no new DID, DAPS certificate or self-description is requested
+            participant = participantService.getParticipantById(entry.getParticipantId());
+        }
 
         if (isFederator) {
             // set federator role for initial organisations
             participant.getMetadata().setMembershipClass(MembershipClass.FEDERATOR);
         }
 
-        // reset signature to MERLOT Federation again
-        organizationQueryController.updateOrganization(participant, merlotFederationRole);
-        delayClearingHouse();
+        awaitClearingHouse();
+        if (isMerlotFederation) {
+            // update membership class for this initial orga using service as federators cannot edit themselves
+            participantService.updateParticipant(participant, merlotFederationRole);
+        } else {
+            // reset signature to MERLOT Federation again
+            organizationQueryController.updateOrganization(participant, merlotFederationRole);
+        }
+
+        entry.setStep(InitialDataImportEntry.Step.COMPLETED);
+        entry.setUpdatedAt(Instant.now());
+        importLedgerRepository.save(entry);
+        return entry.getParticipantId();
+    }
+
+    /**
+     * Records each step of the creation of an initial organisation in the import ledger as soon as it is done.
+     */
+    private class LedgerCreationProgress implements ParticipantCreationProgress {
+
+        private final String fileHash;
+        private final String fileName;
+        private InitialDataImportEntry entry;
+
+        LedgerCreationProgress(String fileHash, String fileName, InitialDataImportEntry entry) {
+            this.fileHash = fileHash;
+            this.fileName = fileName;
+            this.entry = entry;
+        }
+
+        @Override
+        public ParticipantDidPrivateKeyDto getIssuedDid() {
+            return entry == null ? null : readResult(entry.getIssuedDid(), ParticipantDidPrivateKeyDto.class);
+        }
+
+        @Override
+        public void didIssued(ParticipantDidPrivateKeyDto didPrivateKey) {
+            entry = new InitialDataImportEntry(fileHash, fileName, didPrivateKey.getDid(),
+                    InitialDataImportEntry.Step.DID_ISSUED, writeResult(didPrivateKey), null, Instant.now());
+            save();
+        }
+
+        @Override
+        public OmejdnConnectorCertificateDto getIssuedDapsCertificate() {
+            return entry == null ? null
+                    : readResult(entry.getIssuedDapsCertificate(), OmejdnConnectorCertificateDto.class);
+        }
+
+        @Override
+        public void dapsCertificateIssued(OmejdnConnectorCertificateDto certificate) {
+            entry.setStep(InitialDataImportEntry.Step.DAPS_ISSUED);
+            entry.setIssuedDapsCertificate(writeResult(certificate));
+            entry.setUpdatedAt(Instant.now());
+            save();
+        }
+
+        InitialDataImportEntry recordCreated(String participantId) {
+            if (entry == null) {
+                entry = new InitialDataImportEntry(fileHash, fileName, participantId,
+                        InitialDataImportEntry.Step.CREATED, null, null, Instant.now());
+            }
+            // the issued secrets are stored with the participant now
+            entry.setStep(InitialDataImportEntry.Step.CREATED);
+            entry.setIssuedDid(null);
+            entry.setIssuedDapsCertificate(null);
+            entry.setUpdatedAt(Instant.now());
+            save();
+            return entry;
+        }
+
+        private void save() {
+            entry = ledgerTransactionTemplate.execute(status -> importLedgerRepository.save(entry));
+        }
+
+        private <T> T readResult(EncryptedString result, Class<T> type) {
+            if (result == null) {
+                return null;
+            }
+            try {
+                return objectMapper.readValue(result.getPlainText(), type);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to read recorded import step of " + fileName, e);
+            }
+        }
+
+        private EncryptedString writeResult(Object result) {
+            try {
+                return EncryptedString.fromPlainText(objectMapper.writeValueAsString(result));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to record import step of " + fileName, e);
+            }
+        }
+    }
+
+    private String getFileHash(MultipartFile file) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file.getBytes()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash initial data file " + file.getOriginalFilename(), e);
+        }
     }
 
     private MultipartFile getMerlotFederationDocument() {
         try (FileInputStream input = new FileInputStream(merlotFederationRegistrationFormFile)) {
-            return new MockMultipartFile("formular", input.readAllBytes());
+            return new MockMultipartFile("formular", merlotFederationRegistrationFormFile.getName(), null,
+                    input.readAllBytes());
         } catch (IOException | NullPointerException e) {
             throw new NoInitDataException(("Failed to find merlot federation PDF at "
                     + merlotFederationRegistrationFormFile.getPath()));
@@ -156,7 +392,7 @@ public class InitialDataLoader implements CommandLineRunner {
         for (File orgaPdf : folder.listFiles()) {
             try (FileInputStream input = new FileInputStream(orgaPdf)) {
 
-                MultipartFile file = new MockMultipartFile("formular", input.readAllBytes());
+                MultipartFile file = new MockMultipartFile("formular", orgaPdf.getName(), null, input.readAllBytes());
                 orgaPdfs.add(file);
             } catch (IOException e) {
                 log.warn("Failed to read file {}: {}", orgaPdf.getName(), e.getMessage());
@@ -170,12 +406,15 @@ public class InitialDataLoader implements CommandLineRunner {
         return orgaPdfs;
     }
 
-    private void delayClearingHouse() {
+    private void awaitClearingHouse() {
+        if (clearingHouseRateLimiter == null) {
+            return;
+        }
         try {
-            log.info(DELAY_UPDATE_MSG);
-            Thread.sleep(delayUpdateTime);
+            clearingHouseRateLimiter.acquire();
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the clearing house rate limit.", ie);
         }
     }
 }
\ No newline at end of file
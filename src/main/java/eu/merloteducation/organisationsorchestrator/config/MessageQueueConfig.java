@@ -17,12 +17,19 @@
 package eu.merloteducation.organisationsorchestrator.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
 
 @Configuration
 public class MessageQueueConfig {
@@ -30,13 +37,32 @@ public class MessageQueueConfig {
     public static final String ORCHESTRATOR_EXCHANGE = "orchestrator.exchange";
     public static final String ORGANIZATION_REQUEST_KEY = "request.organization";
     public static final String ORGANIZATIONCONNECTOR_REQUEST_KEY = "request.organizationconnector";
+    public static final String ORGANIZATIONS_REQUEST_KEY = "request.organizations";
     public static final String ORGANIZATION_REQUEST_QUEUE = "organization.request.organization.queue";
+    public static final String ORGANIZATIONS_REQUEST_QUEUE = "organization.request.organizations.queue";
     public static final String ORGANIZATIONCONNECTOR_REQUEST_QUEUE = "organizationconnector.request.organizationconnector.queue";
     public static final String ORGANIZATION_REVOKED_KEY = "revoked.organization";
 
     public static final String DID_SERVICE_EXCHANGE = "service.exchange";
     public static final String DID_PRIVATE_KEY_REQUEST_KEY = "request.did_privatekey";
 
+    public static final String REQUEST_LISTENER_CONTAINER_FACTORY = "requestListenerContainerFactory";
+
+    @Value("${messaging.request-listener.concurrent-consumers:4}")
+    private int requestConcurrentConsumers;
+
+    @Value("${messaging.request-listener.max-consumers:16}")
+    private int requestMaxConsumers;
+
+    @Value("${messaging.request-listener.prefetch:10}")
+    private int requestPrefetch;
+
+    @Value("${messaging.request-listener.virtual-threads:false}")
+    private boolean requestVirtualThreads;
+
+    @Value("${messaging.did-service.reply-timeout:PT30S}")
+    private Duration didServiceReplyTimeout;
+
     @Bean
     DirectExchange orchestratorExchange() {
         return new DirectExchange(ORCHESTRATOR_EXCHANGE);
@@ -47,6 +73,11 @@ public class MessageQueueConfig {
         return BindingBuilder.bind(orgaRequestedQueue).to(orchestratorExchange).with(ORGANIZATION_REQUEST_KEY);
     }
 
+    @Bean
+    Binding requestedOrgasBinding(Queue orgasRequestedQueue, DirectExchange orchestratorExchange) {
+        return BindingBuilder.bind(orgasRequestedQueue).to(orchestratorExchange).with(ORGANIZATIONS_REQUEST_KEY);
+    }
+
     @Bean
     Binding requestedOrgaConnectorBinding(Queue orgaConnectorRequestedQueue, DirectExchange orchestratorExchange) {
         return BindingBuilder.bind(orgaConnectorRequestedQueue).to(orchestratorExchange).with(ORGANIZATIONCONNECTOR_REQUEST_KEY);
@@ -57,6 +88,11 @@ public class MessageQueueConfig {
         return new Queue(ORGANIZATION_REQUEST_QUEUE, false);
     }
 
+    @Bean
+    public Queue orgasRequestedQueue() {
+        return new Queue(ORGANIZATIONS_REQUEST_QUEUE, false);
+    }
+
     @Bean
     public Queue orgaConnectorRequestedQueue() {
         return new Queue(ORGANIZATIONCONNECTOR_REQUEST_QUEUE, false);
@@ -67,15 +103,42 @@ public class MessageQueueConfig {
         return new DirectExchange(DID_SERVICE_EXCHANGE);
     }
 
+    @Bean(name = REQUEST_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory requestListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // requests of the other orchestrators are answered in parallel so that one slow catalog call does not block them
+        factory.setConcurrentConsumers(requestConcurrentConsumers);
+        factory.setMaxConcurrentConsumers(requestMaxConsumers);
+        factory.setPrefetchCount(requestPrefetch);
+        if (requestVirtualThreads) {
+            // requires a Java 21 runtime
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-request-"));
+        }
+        // records the processing time per queue as spring.rabbitmq.listener timer
+        factory.setContainerCustomizer(container -> container.setMicrometerEnabled(true));
+        return factory;
+    }
+
     @Bean
     public MessageConverter converter(){
         return new Jackson2JsonMessageConverter();
     }
 
+    @Bean
+    public AsyncRabbitTemplate asyncRabbitTemplate(RabbitTemplate rabbitTemplate) {
+        // replies are received through direct reply-to, so no reply queue has to be declared
+        AsyncRabbitTemplate asyncRabbitTemplate = new AsyncRabbitTemplate(rabbitTemplate);
+        asyncRabbitTemplate.setReceiveTimeout(didServiceReplyTimeout.toMillis());
+        return asyncRabbitTemplate;
+    }
+
     @Bean
     public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory){
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(converter());
+        rabbitTemplate.setObservationEnabled(true);
         return rabbitTemplate;
     }
 }
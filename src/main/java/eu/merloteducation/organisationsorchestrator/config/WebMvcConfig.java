@@ -0,0 +1,43 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.config;
+
+import eu.merloteducation.organisationsorchestrator.controller.ParticipantETagInterceptor;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantETagService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ParticipantETagService participantETagService;
+
+    public WebMvcConfig(@Autowired ParticipantETagService participantETagService) {
+        this.participantETagService = participantETagService;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // run after the active role header has been checked
+        registry.addInterceptor(new ParticipantETagInterceptor(participantETagService))
+                .addPathPatterns(ParticipantETagInterceptor.PATH_PATTERNS)
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+}
@@ -18,12 +18,14 @@ package eu.merloteducation.organisationsorchestrator.config;
 
 import eu.merloteducation.authorizationlibrary.config.MerlotSecurityConfig;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
@@ -33,10 +35,18 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 public class WebSecurityConfig {
     private final MerlotSecurityConfig merlotSecurityConfig;
 
+    /**
+     * Port of the management server, the metrics endpoint is only open on this port as it is not exposed publicly.
+     */
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.authorizeHttpRequests(requests -> requests
                 .requestMatchers(new AntPathRequestMatcher("/health")).permitAll()
+                .requestMatchers(new AndRequestMatcher(new AntPathRequestMatcher("/prometheus"),
+                        request -> request.getLocalPort() == managementPort)).permitAll()
                 .requestMatchers(new AntPathRequestMatcher("/")).permitAll()
                 .requestMatchers(new AntPathRequestMatcher("/federators")).permitAll()
                 .requestMatchers(new AntPathRequestMatcher("/trustedDids")).permitAll()
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.controller;
+
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import eu.merloteducation.organisationsorchestrator.config.InitialDataLoader;
+import eu.merloteducation.organisationsorchestrator.models.InitialDataImportStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/initial-data")
+public class InitialDataController {
+
+    private final InitialDataLoader initialDataLoader;
+
+    public InitialDataController(@Autowired InitialDataLoader initialDataLoader) {
+        this.initialDataLoader = initialDataLoader;
+    }
+
+    /**
+     * GET endpoint for retrieving the progress of the initial data import.
+     *
+     * @return status of the initial data import
+     */
+    @GetMapping("/status")
+    @PreAuthorize("#activeRole.isFedAdmin()")
+    public InitialDataImportStatus getInitialDataStatus(
+            @RequestHeader("Active-Role") OrganizationRoleGrantedAuthority activeRole) {
+        return initialDataLoader.getStatus();
+    }
+}
@@ -18,29 +18,35 @@ package eu.merloteducation.organisationsorchestrator.controller;
 
 import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.merloteducation.authorizationlibrary.authorization.AuthorityChecker;
 import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
 import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
 import eu.merloteducation.modelslib.api.organization.ParticipantAgentDidsDto;
 import eu.merloteducation.modelslib.api.organization.views.OrganisationViews;
-import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapper;
+import eu.merloteducation.organisationsorchestrator.models.BulkRegistrationResult;
 import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import eu.merloteducation.organisationsorchestrator.service.BulkOnboardingService;
 import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
-import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -51,13 +57,29 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @Slf4j
 public class OrganizationQueryController {
 
+    public static final String DEFAULT_PAGE = "0";
+    public static final String DEFAULT_PAGE_SIZE = "9";
+
     private final ParticipantService participantService;
-    private final PdfContentMapper pdfContentMapper;
+    private final RegistrationFormService registrationFormService;
+    private final BulkOnboardingService bulkOnboardingService;
+    private final AuthorityChecker authorityChecker;
+    private final Duration bulkOnboardingTimeout;
+    // the multipart limits are sized for the bulk endpoint, so single forms are checked here
+    private final long maxFormSizeBytes;
 
     public OrganizationQueryController(@Autowired ParticipantService participantService,
-                                       @Autowired PdfContentMapper pdfContentMapper) {
+                                       @Autowired RegistrationFormService registrationFormService,
+                                       @Autowired BulkOnboardingService bulkOnboardingService,
+                                       @Autowired AuthorityChecker authorityChecker,
+                                       @Value("${onboarding.bulk.timeout:PT30M}") Duration bulkOnboardingTimeout,
+                                       @Value("${onboarding.max-form-size:2MB}") DataSize maxFormSize) {
         this.participantService = participantService;
-        this.pdfContentMapper = pdfContentMapper;
+        this.registrationFormService = registrationFormService;
+        this.bulkOnboardingService = bulkOnboardingService;
+        this.authorityChecker = authorityChecker;
+        this.bulkOnboardingTimeout = bulkOnboardingTimeout;
+        this.maxFormSizeBytes = maxFormSize.toBytes();
     }
 
     /**
@@ -68,8 +90,9 @@ public class OrganizationQueryController {
      */
     @GetMapping("")
     @JsonView(OrganisationViews.PublicView.class)
-    public Page<MerlotParticipantDto> getAllOrganizations(@RequestParam(value = "page", defaultValue = "0") int page,
-        @RequestParam(value = "size", defaultValue = "9") int size,
+    public Page<MerlotParticipantDto> getAllOrganizations(
+        @RequestParam(value = "page", defaultValue = DEFAULT_PAGE) int page,
+        @RequestParam(value = "size", defaultValue = DEFAULT_PAGE_SIZE) int size,
         @RequestHeader(value = "Active-Role", required = false) OrganizationRoleGrantedAuthority activeRole) throws JsonProcessingException {
         return participantService.getParticipants(PageRequest.of(page, size), activeRole);
     }
@@ -88,11 +111,12 @@ public class OrganizationQueryController {
         if (files.length != 1) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many files specified");
         }
-        try (PDDocument pdDoc = Loader.loadPDF(files[0].getBytes())) {
-            PDDocumentCatalog pdCatalog = pdDoc.getDocumentCatalog();
-            PDAcroForm pdAcroForm = pdCatalog.getAcroForm();
-            RegistrationFormContent content =
-                    pdfContentMapper.getRegistrationFormContentFromRegistrationForm(pdAcroForm);
+        if (files[0].getSize() > maxFormSizeBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Registration form exceeds the maximum size of " + maxFormSizeBytes + " bytes");
+        }
+        try {
+            RegistrationFormContent content = registrationFormService.readRegistrationForm(files[0]);
             return participantService.createParticipant(content, activeRole);
         } catch (Exception e) {
             log.error("Message: {}", e.getMessage());
@@ -102,6 +126,37 @@ public class OrganizationQueryController {
         }
     }
 
+    /**
+     * POST endpoint for creating multiple organizations from registration forms or ZIP archives of them.
+     * The result of each form is streamed back as a separate JSON line as soon as it is available.
+     *
+     * @return stream of registration results
+     */
+    @PostMapping(value = "/organizations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("#activeRole.isFedAdmin()")
+    public ResponseBodyEmitter createOrganizations(@RequestPart("file") MultipartFile[] files,
+        @RequestHeader("Active-Role") OrganizationRoleGrantedAuthority activeRole) {
+
+        List<MultipartFile> forms = bulkOnboardingService.getRegistrationForms(files);
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkOnboardingTimeout.toMillis());
+        bulkOnboardingService.onboardOrganizations(forms, activeRole, result -> sendResult(emitter, result))
+                .whenComplete((v, e) -> emitter.complete());
+        return emitter;
+    }
+
+    private void sendResult(ResponseBodyEmitter emitter, BulkRegistrationResult result) {
+        try {
+            // results arrive from several workers, keep each line together
+            synchronized (emitter) {
+                emitter.send(result, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the remaining organizations are onboarded even if the client is gone
+            log.warn("Failed to send registration result of {}: {}", result.getFileName(), e.getMessage());
+        }
+    }
+
     /**
      * PUT endpoint for updating an organization.
      *
@@ -128,7 +183,10 @@ public class OrganizationQueryController {
     @JsonView(OrganisationViews.PublicView.class)
     public MerlotParticipantDto getOrganizationById(@PathVariable(value = "orgaId") String orgaId){
         try {
-            return participantService.getParticipantById(orgaId);
+            // signer config and certificates are only returned to representatives, so only decrypt them for those
+            boolean representsOrganization = authorityChecker.representsOrganization(
+                    SecurityContextHolder.getContext().getAuthentication(), orgaId);
+            return participantService.getParticipantById(orgaId, representsOrganization);
         } catch (HttpClientErrorException.NotFound | JsonProcessingException e) {
             throw new ResponseStatusException(NOT_FOUND, "No participant with this id was found.");
         }
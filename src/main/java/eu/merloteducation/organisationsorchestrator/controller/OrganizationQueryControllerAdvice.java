@@ -18,12 +18,9 @@ package eu.merloteducation.organisationsorchestrator.controller;
 
 import eu.merloteducation.authorizationlibrary.authorization.AuthorityChecker;
 import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
-import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryLegalNameItem;
-import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
-import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.merlot.participants.MerlotLegalParticipantCredentialSubject;
-import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
 import eu.merloteducation.modelslib.api.organization.MembershipClass;
 import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.MethodParameter;
@@ -38,17 +35,21 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
 
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 @ControllerAdvice(assignableTypes = OrganizationQueryController.class)
 public class OrganizationQueryControllerAdvice extends AbstractMappingJacksonResponseBodyAdvice {
 
     private final AuthorityChecker authorityChecker;
 
-    private final GxfsCatalogService gxfsCatalogService;
+    private final SignerLegalNameService signerLegalNameService;
 
     public OrganizationQueryControllerAdvice(@Autowired AuthorityChecker authorityChecker,
-                                             @Autowired GxfsCatalogService gxfsCatalogService) {
+                                             @Autowired SignerLegalNameService signerLegalNameService) {
         this.authorityChecker = authorityChecker;
-        this.gxfsCatalogService = gxfsCatalogService;
+        this.signerLegalNameService = signerLegalNameService;
     }
 
     @Override
@@ -85,6 +86,18 @@ public class OrganizationQueryControllerAdvice extends AbstractMappingJacksonRes
 
         try {
             Page<MerlotParticipantDto> participantDtos = (Page<MerlotParticipantDto>) bodyContainer.getValue();
+
+            // resolve the signers of all participants on this page at once
+            Map<MerlotParticipantDto, String> participantSigners = new IdentityHashMap<>();
+            for (MerlotParticipantDto p : participantDtos) {
+                String signerId = getSignerId(p);
+                if (signerId != null) {
+                    participantSigners.put(p, signerId);
+                }
+            }
+            Map<String, String> signerLegalNames =
+                    signerLegalNameService.getLegalNamesForSigners(new HashSet<>(participantSigners.values()));
+
             for (MerlotParticipantDto p : participantDtos) {
                 boolean representsOrganization = authorityChecker.representsOrganization(authentication, p.getId());
                 if (!isFedAdmin && !representsOrganization &&
@@ -98,8 +111,11 @@ public class OrganizationQueryControllerAdvice extends AbstractMappingJacksonRes
                     p.getMetadata().setConnectors(null);
                 }
 
-                // try to also set the signedBy field
-                setSignerLegalNameFromCatalog(p);
+                // also set the signedBy field if the signer could be resolved
+                String signerId = participantSigners.get(p);
+                if (signerId != null && signerLegalNames.containsKey(signerId)) {
+                    p.getMetadata().setSignedBy(signerLegalNames.get(signerId));
+                }
 
                 // always hide signer config and certificates in page/list view
                 p.getMetadata().setOrganisationSignerConfigDto(null);
@@ -111,22 +127,19 @@ public class OrganizationQueryControllerAdvice extends AbstractMappingJacksonRes
         }
     }
 
-    private void setSignerLegalNameFromCatalog(MerlotParticipantDto dto) {
-        try {
-            String proofVerificationMethod = dto.getSelfDescription().getLdProof().getVerificationMethod().toString();
-
-            String signerId = proofVerificationMethod.replaceFirst("#.*", "");
-
-            GXFSCatalogListResponse<GXFSQueryLegalNameItem>
-                    response = gxfsCatalogService.getParticipantLegalNameByUri(MerlotLegalParticipantCredentialSubject.TYPE_CLASS, signerId);
+    private String getSignerId(MerlotParticipantDto dto) {
+        return dto.getSelfDescription() == null ? null : SignerLegalNameService.getSignerId(dto.getSelfDescription());
+    }
 
+    private void setSignerLegalNameFromCatalog(MerlotParticipantDto dto) {
+        String signerId = getSignerId(dto);
+        if (signerId == null) {
+            return;
+        }
 
-            // if we do not get exactly one item, we did not find the signer participant and the corresponding legal name
-            if (response.getTotalCount() == 1) {
-                dto.getMetadata().setSignedBy(response.getItems().get(0).getLegalName());
-            }
-        } catch (Exception ignored) {
-            // if something fails, we just leave the signedBy as null (not resolvable)
+        String legalName = signerLegalNameService.getLegalNameForSigner(signerId);
+        if (legalName != null) {
+            dto.getMetadata().setSignedBy(legalName);
         }
     }
 }
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.controller;
+
+import eu.merloteducation.organisationsorchestrator.service.ParticipantETagService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Answers conditional GET requests for participants with 304 before any participant is loaded from the catalog.
+ */
+public class ParticipantETagInterceptor implements HandlerInterceptor {
+
+    public static final String[] PATH_PATTERNS = {"/", "/organization/*", "/federators"};
+
+    private static final String ACTIVE_ROLE_HEADER = "Active-Role";
+
+    private final ParticipantETagService participantETagService;
+
+    public ParticipantETagInterceptor(ParticipantETagService participantETagService) {
+        this.participantETagService = participantETagService;
+    }
+
+    @Override
+    public boolean preHandle(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                             @NotNull Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+
+        String etag = getETag(request);
+        if (etag == null) {
+            return true;
+        }
+
+        // responses differ per requester, so they must be revalidated and not be stored by shared caches
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, ACTIVE_ROLE_HEADER + ", " + HttpHeaders.AUTHORIZATION);
+
+        // also sets the ETag header, matching requests are answered with 304 without calling the controller
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    private String getETag(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String activeRole = request.getHeader(ACTIVE_ROLE_HEADER);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return null;
+        }
+
+        return switch (pattern) {
+            case "/organization/{orgaId}" -> {
+                Map<?, ?> uriVariables =
+                        (Map<?, ?>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+                yield participantETagService.getParticipantETag((String) uriVariables.get("orgaId"),
+                        authentication, activeRole);
+            }
+            case "/federators" -> participantETagService.getFederatorsETag(authentication, activeRole);
+            case "/" -> getParticipantsETag(request, authentication, activeRole);
+            default -> null;
+        };
+    }
+
+    private String getParticipantsETag(HttpServletRequest request, Authentication authentication, String activeRole) {
+        String page = Objects.requireNonNullElse(request.getParameter("page"),
+                OrganizationQueryController.DEFAULT_PAGE);
+        String size = Objects.requireNonNullElse(request.getParameter("size"),
+                OrganizationQueryController.DEFAULT_PAGE_SIZE);
+        try {
+            return participantETagService.getParticipantsETag(
+                    PageRequest.of(Integer.parseInt(page), Integer.parseInt(size)), authentication, activeRole);
+        } catch (IllegalArgumentException e) {
+            // invalid page requests are rejected by the controller
+            return null;
+        }
+    }
+}
@@ -16,10 +16,12 @@
 
 package eu.merloteducation.organisationsorchestrator.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import eu.merloteducation.gxfscataloglibrary.service.GxdchService;
-import eu.merloteducation.gxfscataloglibrary.service.GxfsWizardApiService;
+import eu.merloteducation.organisationsorchestrator.service.ShapeCacheService;
+import eu.merloteducation.organisationsorchestrator.service.ShapeCacheService.ShapeDocument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -31,14 +33,10 @@ public class ParticipantShapeController {
     private static final String ECOSYSTEM_MERLOT = "merlot";
     private static final String ECOSYSTEM_GAIAX = "gx";
 
-    private final GxfsWizardApiService gxfsWizardApiService;
+    private final ShapeCacheService shapeCacheService;
 
-    private final GxdchService gxdchService;
-
-    public ParticipantShapeController(@Autowired GxfsWizardApiService gxfsWizardApiService,
-                                      @Autowired GxdchService gxdchService) {
-        this.gxfsWizardApiService = gxfsWizardApiService;
-        this.gxdchService = gxdchService;
+    public ParticipantShapeController(@Autowired ShapeCacheService shapeCacheService) {
+        this.shapeCacheService = shapeCacheService;
     }
 
     /**
@@ -47,22 +45,37 @@ public class ParticipantShapeController {
      * @return merlot participant shape
      */
     @GetMapping("/merlot/participant")
-    public String getMerlotParticipantShape() {
-        return gxfsWizardApiService.getShapeByName(ECOSYSTEM_MERLOT, "Merlotlegalparticipant.json");
+    public ResponseEntity<String> getMerlotParticipantShape() {
+        return toResponse(shapeCacheService.getShape(ECOSYSTEM_MERLOT, "Merlotlegalparticipant.json"), null);
     }
 
     @GetMapping("/gx/participant")
-    public String getGxParticipantShape() {
-        return gxfsWizardApiService.getShapeByName(ECOSYSTEM_GAIAX, "Legalparticipant.json");
+    public ResponseEntity<String> getGxParticipantShape() {
+        return toResponse(shapeCacheService.getShape(ECOSYSTEM_GAIAX, "Legalparticipant.json"), null);
     }
 
     @GetMapping("/gx/registrationnumber")
-    public String getGxRegistrationNumberShape() {
-        return gxfsWizardApiService.getShapeByName(ECOSYSTEM_GAIAX, "Legalregistrationnumber.json");
+    public ResponseEntity<String> getGxRegistrationNumberShape() {
+        return toResponse(shapeCacheService.getShape(ECOSYSTEM_GAIAX, "Legalregistrationnumber.json"), null);
     }
 
     @GetMapping("/gx/tnc")
-    public JsonNode getGxTermsAndConditions() {
-        return gxdchService.getGxTnCs();
+    public ResponseEntity<String> getGxTermsAndConditions() {
+        return toResponse(shapeCacheService.getGxTermsAndConditions(), MediaType.APPLICATION_JSON);
+    }
+
+    private ResponseEntity<String> toResponse(ShapeDocument document, MediaType contentType) {
+        if (document == null) {
+            return ResponseEntity.ok().build();
+        }
+        // conditional requests matching these validators are answered with 304 by spring
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(document.etag())
+                .lastModified(document.lastModified());
+        if (contentType != null) {
+            response.contentType(contentType);
+        }
+        return response.body(document.content());
     }
 }
@@ -20,6 +20,7 @@ import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiab
 import eu.merloteducation.modelslib.api.did.ParticipantDidPrivateKeyDto;
 import eu.merloteducation.modelslib.api.organization.*;
 import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateDto;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
 import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
 import eu.merloteducation.organisationsorchestrator.models.entities.*;
 import org.mapstruct.*;
@@ -79,6 +80,38 @@ public interface OrganizationMapper {
     @Mapping(target = "ocmAgentSettings", source = "ocmAgentSettings")
     MerlotParticipantMetaDto organizationMetadataToMerlotParticipantMetaDto(OrganizationMetadata metadata);
 
+    @Named("withoutSecrets")
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "orgaId", source = "orgaId")
+    @Mapping(target = "mailAddress", source = "mailAddress")
+    @Mapping(target = "membershipClass", source = "membershipClass")
+    @Mapping(target = "active", source = "active")
+    @Mapping(target = "connectors", source = "connectors", qualifiedByName = "connectorsForDto")
+    @Mapping(target = "ocmAgentSettings", source = "ocmAgentSettings")
+    MerlotParticipantMetaDto organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets(OrganizationMetadata metadata);
+
+    default String encryptedStringToString(EncryptedString encryptedString) {
+        return encryptedString == null ? null : encryptedString.getPlainText();
+    }
+
+    default EncryptedString stringToEncryptedString(String plainText) {
+        return plainText == null ? null : EncryptedString.fromPlainText(plainText);
+    }
+
+    /**
+     * Keep the stored secret if its plain text did not change, so it is neither encrypted again nor written back.
+     *
+     * @param current   currently stored secret
+     * @param plainText new plain text
+     * @return secret to store
+     */
+    default EncryptedString updateEncryptedString(EncryptedString current, String plainText) {
+        if (current != null && plainText != null && plainText.equals(current.getPlainText())) {
+            return current;
+        }
+        return stringToEncryptedString(plainText);
+    }
+
 
     default ParticipantAgentDidsDto agentSettingsSetToDidDto(Set<ParticipantAgentSettingsDto> agentSettings) {
         ParticipantAgentDidsDto dto = new ParticipantAgentDidsDto();
@@ -127,7 +160,7 @@ public interface OrganizationMapper {
                                                                           MerlotParticipantMetaDto metaData);
 
     default void updateOrganizationMetadataWithMerlotParticipantMetaDto(MerlotParticipantMetaDto source,
-                                                                        @MappingTarget OrganizationMetadata target) {
+                                                                        OrganizationMetadata target) {
         target.setMailAddress(source.getMailAddress());
         target.setMembershipClass(source.getMembershipClass());
         target.setActive(source.isActive());
@@ -137,8 +170,7 @@ public interface OrganizationMapper {
 
         target.getConnectors().clear();
         target.getConnectors().addAll(updatedConnectors);
-        target.setOrganisationSignerConfig(
-                organisationSignerConfigDtoToOrganisationSignerConfig(source.getOrganisationSignerConfigDto()));
+        updateOrganisationSignerConfig(source.getOrganisationSignerConfigDto(), target);
         target.getOcmAgentSettings().clear();
         if (source.getOcmAgentSettings() != null) {
             target.getOcmAgentSettings().addAll(source.getOcmAgentSettings()
@@ -146,11 +178,28 @@ public interface OrganizationMapper {
         }
     }
 
+    default void updateOrganisationSignerConfig(OrganisationSignerConfigDto source,
+                                                OrganizationMetadata target) {
+        OrganisationSignerConfig signerConfig = target.getOrganisationSignerConfig();
+        if (source == null || signerConfig == null) {
+            target.setOrganisationSignerConfig(organisationSignerConfigDtoToOrganisationSignerConfig(source));
+            return;
+        }
+        signerConfig.setPrivateKey(updateEncryptedString(signerConfig.getPrivateKey(), source.getPrivateKey()));
+        signerConfig.setVerificationMethod(source.getVerificationMethod());
+        signerConfig.setMerlotVerificationMethod(source.getMerlotVerificationMethod());
+    }
+
     @Mapping(target = "privateKey", source = "privateKey")
     @Mapping(target = "verificationMethod", source = "verificationMethod")
     @Mapping(target = "merlotVerificationMethod", source = "merlotVerificationMethod")
     OrganisationSignerConfig organisationSignerConfigDtoToOrganisationSignerConfig(OrganisationSignerConfigDto signerConfigDto);
 
+    @Mapping(target = "privateKey", source = "privateKey")
+    @Mapping(target = "verificationMethod", source = "verificationMethod")
+    @Mapping(target = "merlotVerificationMethod", source = "merlotVerificationMethod")
+    OrganisationSignerConfigDto organisationSignerConfigToOrganisationSignerConfigDto(OrganisationSignerConfig signerConfig);
+
     OrganizationConnectorTransferDto connectorExtensionToOrganizationConnectorTransferDto(OrganisationConnectorExtension extension);
 
     @BeanMapping(ignoreByDefault = true)
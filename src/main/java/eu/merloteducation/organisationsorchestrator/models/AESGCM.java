@@ -16,6 +16,8 @@
 
 package eu.merloteducation.organisationsorchestrator.models;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.bouncycastle.crypto.CryptoException;
 
 import java.nio.ByteBuffer;
@@ -25,6 +27,7 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -45,16 +48,48 @@ public class AESGCM {
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int AUTH_TAG_LENGTH = 128;
 
+    // SecureRandom is thread-safe, Cipher is not, so each thread reuses its own instance
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
+    // this class is used statically from the entity converter, so the timers use the global registry spring binds to
+    private static final String TIMER_NAME = "crypto.aesgcm";
+    private static final Timer ENCRYPT_TIMER = Timer.builder(TIMER_NAME)
+            .description("AES-GCM encryption and decryption of stored secrets")
+            .tag("operation", "encrypt")
+            .register(Metrics.globalRegistry);
+    private static final Timer DECRYPT_TIMER = Timer.builder(TIMER_NAME)
+            .description("AES-GCM encryption and decryption of stored secrets")
+            .tag("operation", "decrypt")
+            .register(Metrics.globalRegistry);
+
     private AESGCM() {
     }
 
     public static String encrypt(String plainText, SecretKey secretKey) throws CryptoException {
+        long start = System.nanoTime();
+        try {
+            return doEncrypt(plainText, secretKey);
+        } finally {
+            ENCRYPT_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static String decrypt(String cipherMessage, SecretKey secretKey) throws CryptoException {
+        long start = System.nanoTime();
+        try {
+            return doDecrypt(cipherMessage, secretKey);
+        } finally {
+            DECRYPT_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String doEncrypt(String plainText, SecretKey secretKey) throws CryptoException {
         // create a new IV for this encryption
         byte[] iv = new byte[12];
-        SecureRandom secureRandom = new SecureRandom();
-        secureRandom.nextBytes(iv);
+        SECURE_RANDOM.nextBytes(iv);
 
-        // create a cipher instance
+        // get the cipher instance of this thread
         final Cipher cipher = createCipher(Cipher.ENCRYPT_MODE, secretKey, iv);
 
         // convert the plainText to bytes
@@ -79,8 +114,7 @@ public class AESGCM {
         return Base64.getEncoder().encodeToString(byteBuffer.array());
     }
 
-
-    public static String decrypt(String cipherMessage, SecretKey secretKey) throws CryptoException {
+    private static String doDecrypt(String cipherMessage, SecretKey secretKey) throws CryptoException {
         // decode from Base64 for the byte representation
         byte[] decoded = Base64.getDecoder().decode(cipherMessage);
 
@@ -99,7 +133,7 @@ public class AESGCM {
         byte[] cipherText = new byte[byteBuffer.remaining()];
         byteBuffer.get(cipherText);
 
-        // create a cipher instance
+        // get the cipher instance of this thread
         final Cipher cipher = createCipher(Cipher.DECRYPT_MODE, secretKey, iv);
 
         // decrypt the cipherText
@@ -115,14 +149,17 @@ public class AESGCM {
     }
 
     private static Cipher createCipher(int cipherMode, SecretKey secretKey, byte[] iv) throws CryptoException {
-        Cipher cipher;
-        try {
-            cipher = Cipher.getInstance(TRANSFORMATION);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException ex) {
-            throw new CryptoException("Could not create cipher instance", ex);
+        Cipher cipher = CIPHERS.get();
+        if (cipher == null) {
+            try {
+                cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (NoSuchAlgorithmException | NoSuchPaddingException ex) {
+                throw new CryptoException("Could not create cipher instance", ex);
+            }
+            CIPHERS.set(cipher);
         }
 
-        // initialise the cipher
+        // (re)initialise the cipher, this also resets any state left over from a previous operation
         try {
             cipher.init(cipherMode, secretKey, new GCMParameterSpec(AUTH_TAG_LENGTH, iv));
         } catch (InvalidKeyException | InvalidAlgorithmParameterException ex) {
@@ -19,13 +19,15 @@ package eu.merloteducation.organisationsorchestrator.models;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import org.bouncycastle.crypto.CryptoException;
+import org.hibernate.annotations.Immutable;
 import org.springframework.beans.factory.annotation.Value;
 
 import javax.crypto.*;
 import javax.crypto.spec.SecretKeySpec;
 
 @Converter
-public class AttributeEncryptor implements AttributeConverter<String, String> {
+@Immutable
+public class AttributeEncryptor implements AttributeConverter<EncryptedString, String> {
 
     private final SecretKey key;
 
@@ -34,28 +36,25 @@ public class AttributeEncryptor implements AttributeConverter<String, String> {
     }
 
     @Override
-    public String convertToDatabaseColumn(String attribute) {
+    public String convertToDatabaseColumn(EncryptedString attribute) {
         if(attribute == null) {
             return null;
         }
 
         try {
-            return AESGCM.encrypt(attribute, key);
+            return attribute.getCipherText(key);
         } catch(CryptoException ex) {
             throw new IllegalStateException(ex);
         }
     }
 
     @Override
-    public String convertToEntityAttribute(String dbData) {
+    public EncryptedString convertToEntityAttribute(String dbData) {
         if(dbData == null) {
             return null;
         }
 
-        try {
-            return AESGCM.decrypt(dbData, key);
-        } catch(CryptoException ex) {
-            throw new IllegalStateException(ex);
-        }
+        // decryption is deferred until the plain text is read
+        return EncryptedString.fromCipherText(dbData, key);
     }
 }
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.models;
+
+import org.bouncycastle.crypto.CryptoException;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Secret string attribute that is stored encrypted and only decrypted once its plain text is actually read.
+ * Values loaded from the database keep their cipher text, so writing them back does not encrypt them again.
+ */
+public final class EncryptedString {
+
+    private final String cipherText;
+
+    private final SecretKey secretKey;
+
+    private volatile String plainText;
+
+    private EncryptedString(String cipherText, SecretKey secretKey, String plainText) {
+        this.cipherText = cipherText;
+        this.secretKey = secretKey;
+        this.plainText = plainText;
+    }
+
+    /**
+     * Given a plain text, return a value that is encrypted when it is stored.
+     *
+     * @param plainText plain text
+     * @return encrypted string
+     */
+    public static EncryptedString fromPlainText(String plainText) {
+        if (plainText == null) {
+            throw new IllegalArgumentException("Plain text of an encrypted string must not be null.");
+        }
+        return new EncryptedString(null, null, plainText);
+    }
+
+    static EncryptedString fromCipherText(String cipherText, SecretKey secretKey) {
+        return new EncryptedString(cipherText, secretKey, null);
+    }
+
+    /**
+     * Return the plain text, decrypting it on first access.
+     *
+     * @return plain text
+     */
+    public String getPlainText() {
+        String result = plainText;
+        if (result == null) {
+            try {
+                result = AESGCM.decrypt(cipherText, secretKey);
+            } catch (CryptoException ex) {
+                throw new IllegalStateException(ex);
+            }
+            plainText = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return whether the plain text has already been decrypted or was given directly.
+     *
+     * @return true if no decryption is needed to read the plain text
+     */
+    public boolean isPlainTextAvailable() {
+        return plainText != null;
+    }
+
+    String getCipherText(SecretKey key) throws CryptoException {
+        if (cipherText != null && key.equals(secretKey)) {
+            return cipherText;
+        }
+        return AESGCM.encrypt(getPlainText(), key);
+    }
+
+    /**
+     * Stored values are equal if they share the same cipher text. Values that were never stored are only equal to
+     * themselves, as comparing them would require their secrets.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EncryptedString other) || cipherText == null) {
+            return false;
+        }
+        return cipherText.equals(other.cipherText) && secretKey.equals(other.secretKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return cipherText == null ? System.identityHashCode(this) : cipherText.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        // never expose the secret in logs
+        return "EncryptedString[***]";
+    }
+}
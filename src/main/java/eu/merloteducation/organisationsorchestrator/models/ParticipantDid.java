@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.models;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+@Getter
+@EqualsAndHashCode
+public final class ParticipantDid {
+
+    private static final String PREFIX = "did:web:";
+
+    private final String value;
+
+    private ParticipantDid(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Given a participant id, return it as a validated did:web.
+     *
+     * @param id participant id
+     * @return participant did
+     * @throws IllegalArgumentException the id is not a valid did:web
+     */
+    public static ParticipantDid parse(String id) {
+        if (!isValid(id)) {
+            throw new IllegalArgumentException("Provided id is invalid. It has to be a valid did:web.");
+        }
+        return new ParticipantDid(id);
+    }
+
+    /**
+     * Given a participant id, return whether it matches did:web:[-.A-Za-z0-9:%#]*.
+     * The id is scanned once without compiling a pattern or allocating a matcher.
+     *
+     * @param id participant id
+     * @return true if the id is a valid did:web
+     */
+    public static boolean isValid(String id) {
+        if (id == null || !id.startsWith(PREFIX)) {
+            return false;
+        }
+        for (int i = PREFIX.length(); i < id.length(); i++) {
+            if (!isAllowedCharacter(id.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAllowedCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == ':' || c == '%' || c == '#';
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
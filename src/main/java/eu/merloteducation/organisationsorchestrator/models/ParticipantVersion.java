@@ -0,0 +1,28 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.models;
+
+/**
+ * Version of a participant as used for its ETag.
+ *
+ * @param orgaId id of the participant
+ * @param metadataVersion version of the metadata of the participant
+ * @param sdHash hash of the self-description of the participant or null if it is not known
+ * @param signerId DID of the signer of the self-description or null if it is not known
+ */
+public record ParticipantVersion(String orgaId, long metadataVersion, String sdHash, String signerId) {
+}
@@ -17,6 +17,7 @@
 package eu.merloteducation.organisationsorchestrator.models.entities;
 
 import eu.merloteducation.organisationsorchestrator.models.AttributeEncryptor;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -45,7 +46,7 @@ public class DapsCertificate {
 
     @NotNull
     @Convert(converter = AttributeEncryptor.class)
-    private String password;
+    private EncryptedString password;
 
     @NotNull
     private String scope;
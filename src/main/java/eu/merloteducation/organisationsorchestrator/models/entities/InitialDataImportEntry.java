@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.models.entities;
+
+import eu.merloteducation.organisationsorchestrator.models.AttributeEncryptor;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InitialDataImportEntry {
+
+    public enum Step {
+        DID_ISSUED,
+        DAPS_ISSUED,
+        CREATED,
+        COMPLETED
+    }
+
+    @Id
+    private String fileHash;
+
+    @NotNull
+    private String fileName;
+
+    @NotNull
+    private String participantId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private Step step;
+
+    // results of the DID and DAPS requests as JSON, they contain the private key and the certificate password
+    @Convert(converter = AttributeEncryptor.class)
+    @Column(columnDefinition = "TEXT")
+    private EncryptedString issuedDid;
+
+    @Convert(converter = AttributeEncryptor.class)
+    @Column(columnDefinition = "TEXT")
+    private EncryptedString issuedDapsCertificate;
+
+    @NotNull
+    private Instant updatedAt;
+}
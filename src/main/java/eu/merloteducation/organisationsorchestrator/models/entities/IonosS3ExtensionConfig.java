@@ -35,6 +35,6 @@ public class IonosS3ExtensionConfig {
     private Long id;
 
     @NotNull
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<IonosS3Bucket> buckets;
 }
@@ -19,7 +19,9 @@ import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @IdClass(OrganisationConnectorExtensionId.class)
@@ -38,8 +40,11 @@ public class OrganisationConnectorExtension {
     @NotNull
     private String connectorAccessToken;
 
+    // excluded so that adding a connector to a set does not load its extension config
     @Nullable
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private IonosS3ExtensionConfig ionosS3ExtensionConfig;
 
 }
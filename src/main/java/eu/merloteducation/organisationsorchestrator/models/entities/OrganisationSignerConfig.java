@@ -17,6 +17,7 @@
 package eu.merloteducation.organisationsorchestrator.models.entities;
 
 import eu.merloteducation.organisationsorchestrator.models.AttributeEncryptor;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -34,7 +35,7 @@ public class OrganisationSignerConfig {
     @NotNull
     @Convert(converter = AttributeEncryptor.class)
     @Column(columnDefinition = "TEXT")
-    private String privateKey;
+    private EncryptedString privateKey;
 
     @NotNull
     private String verificationMethod;
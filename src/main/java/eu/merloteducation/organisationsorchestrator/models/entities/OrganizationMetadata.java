@@ -24,6 +24,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.List;
@@ -33,7 +34,32 @@ import java.util.Set;
 @Getter
 @Setter
 @NoArgsConstructor
+@NamedEntityGraph(name = OrganizationMetadata.LISTING_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "connectors", subgraph = "connectorConfig"),
+                @NamedAttributeNode("ocmAgentSettings")
+        },
+        subgraphs = @NamedSubgraph(name = "connectorConfig",
+                attributeNodes = @NamedAttributeNode("ionosS3ExtensionConfig")))
+@NamedEntityGraph(name = OrganizationMetadata.DETAIL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "connectors", subgraph = "connectorConfig"),
+                @NamedAttributeNode("organisationSignerConfig"),
+                @NamedAttributeNode("ocmAgentSettings")
+        },
+        subgraphs = @NamedSubgraph(name = "connectorConfig",
+                attributeNodes = @NamedAttributeNode("ionosS3ExtensionConfig")))
+@NamedEntityGraph(name = OrganizationMetadata.SIGNER_CONFIG_GRAPH,
+        attributeNodes = @NamedAttributeNode("organisationSignerConfig"))
 public class OrganizationMetadata {
+
+    // lists (bags) are never fetched together with other collections, they are loaded in batches instead
+    public static final String LISTING_GRAPH = "OrganizationMetadata.listing";
+
+    public static final String DETAIL_GRAPH = "OrganizationMetadata.detail";
+
+    public static final String SIGNER_CONFIG_GRAPH = "OrganizationMetadata.signerConfig";
+
     @Id
     private String orgaId;
 
@@ -44,20 +70,30 @@ public class OrganizationMetadata {
 
     private boolean active;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    // incremented on every update of the participant, part of the ETag of the participant responses
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long metadataVersion;
+
+    // hash and signer of the current self-description, written in the same transaction as the metadata version
+    private String sdHash;
+
+    private String signerId;
+
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     @JoinColumn(name = "orgaId", referencedColumnName = "orgaId", updatable = false)
     private Set<OrganisationConnectorExtension> connectors = new HashSet<>();
 
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     @Nullable
     private OrganisationSignerConfig organisationSignerConfig;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<DapsCertificate> dapsCertificates;
 
     @Size(max=2)
     @NotNull
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private Set<OcmAgentSettings> ocmAgentSettings;
 
     public OrganizationMetadata(String orgaId, String mailAddress, MembershipClass membershipClass, boolean active, Set<OcmAgentSettings> ocmAgentSettings) {
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.models.entities;
+
+import eu.merloteducation.modelslib.api.organization.MembershipClass;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(indexes = {
+    @Index(columnList = "nameSortKey, participantId"),
+    @Index(columnList = "active, nameSortKey, participantId")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ParticipantDirectoryEntry {
+    @Id
+    private String participantId;
+
+    private String name;
+
+    // lower case name, the participant list is ordered by it
+    private String nameSortKey;
+
+    private String legalName;
+
+    @Enumerated(EnumType.STRING)
+    private MembershipClass membershipClass;
+
+    private boolean active;
+
+    private String sdHash;
+
+    @Column(columnDefinition = "TEXT")
+    private String selfDescription;
+
+    // time of the last write, reconciliation leaves entries alone that were written after it started
+    private Instant updatedAt;
+}
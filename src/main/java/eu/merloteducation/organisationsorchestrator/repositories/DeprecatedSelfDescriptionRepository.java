@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.repositories;
+
+import eu.merloteducation.organisationsorchestrator.models.entities.DeprecatedSelfDescription;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DeprecatedSelfDescriptionRepository extends JpaRepository<DeprecatedSelfDescription, String> {
+    // a lock timeout of -2 skips rows locked by other instances (SELECT ... FOR UPDATE SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT sd FROM DeprecatedSelfDescription sd WHERE sd.attempts < :attempts " +
+            "AND (sd.claimedUntil IS NULL OR sd.claimedUntil < :now) ORDER BY sd.discoveredAt")
+    List<DeprecatedSelfDescription> findUnclaimedForUpdate(@Param("attempts") int attempts,
+                                                           @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claim a batch of deprecated self-descriptions with less than the given attempts until the given time,
+     * so that no other instance picks them up in the meantime.
+     *
+     * @param attempts maximum number of attempts (exclusive)
+     * @param claimedUntil end of the claim
+     * @param pageable batch to claim
+     * @return claimed self-descriptions
+     */
+    @Transactional
+    default List<DeprecatedSelfDescription> claimBatch(int attempts, Instant claimedUntil, Pageable pageable) {
+        List<DeprecatedSelfDescription> deprecatedSds = findUnclaimedForUpdate(attempts, Instant.now(), pageable);
+        deprecatedSds.forEach(deprecatedSd -> deprecatedSd.setClaimedUntil(claimedUntil));
+        return saveAll(deprecatedSds);
+    }
+
+    long countByAttemptsLessThan(int attempts);
+
+    long countByAttemptsGreaterThanEqual(int attempts);
+}
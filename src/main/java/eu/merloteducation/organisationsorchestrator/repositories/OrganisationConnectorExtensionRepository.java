@@ -0,0 +1,30 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.repositories;
+
+import eu.merloteducation.organisationsorchestrator.models.entities.OrganisationConnectorExtension;
+import eu.merloteducation.organisationsorchestrator.models.entities.OrganisationConnectorExtensionId;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface OrganisationConnectorExtensionRepository
+        extends JpaRepository<OrganisationConnectorExtension, OrganisationConnectorExtensionId> {
+    @EntityGraph(attributePaths = {"ionosS3ExtensionConfig", "ionosS3ExtensionConfig.buckets"})
+    Optional<OrganisationConnectorExtension> findByOrgaIdAndConnectorId(String orgaId, String connectorId);
+}
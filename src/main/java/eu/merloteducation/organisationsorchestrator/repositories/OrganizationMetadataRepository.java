@@ -17,21 +17,53 @@
 package eu.merloteducation.organisationsorchestrator.repositories;
 
 import eu.merloteducation.modelslib.api.organization.MembershipClass;
+import eu.merloteducation.organisationsorchestrator.models.ParticipantVersion;
 import eu.merloteducation.organisationsorchestrator.models.entities.OrganizationMetadata;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrganizationMetadataRepository extends JpaRepository<OrganizationMetadata, String> {
+    @EntityGraph(OrganizationMetadata.LISTING_GRAPH)
     List<OrganizationMetadata> findByMembershipClass(MembershipClass membershipClass);
 
+    @EntityGraph(OrganizationMetadata.LISTING_GRAPH)
+    List<OrganizationMetadata> findAllByOrgaIdIn(Collection<String> orgaIds);
+
+    @EntityGraph(OrganizationMetadata.LISTING_GRAPH)
+    Optional<OrganizationMetadata> findWithConnectorsByOrgaId(String orgaId);
+
+    @EntityGraph(OrganizationMetadata.DETAIL_GRAPH)
+    Optional<OrganizationMetadata> findWithDetailsByOrgaId(String orgaId);
+
+    @EntityGraph(OrganizationMetadata.SIGNER_CONFIG_GRAPH)
+    Optional<OrganizationMetadata> findWithSignerConfigByOrgaId(String orgaId);
+
     @Query("SELECT orgaId FROM OrganizationMetadata metadata WHERE metadata.membershipClass = :membershipClass")
     List<String> getOrgaIdByMembershipClass(@Param("membershipClass") MembershipClass membershipClass);
 
     @Query("SELECT orgaId FROM OrganizationMetadata metadata WHERE metadata.active = :active")
     List<String> getOrgaIdByActive(@Param("active") boolean active);
 
+    @Query("SELECT metadata.metadataVersion FROM OrganizationMetadata metadata WHERE metadata.orgaId = :orgaId")
+    Optional<Long> getMetadataVersionByOrgaId(@Param("orgaId") String orgaId);
+
+    @Query("SELECT new eu.merloteducation.organisationsorchestrator.models.ParticipantVersion(" +
+            "metadata.orgaId, metadata.metadataVersion, metadata.sdHash, metadata.signerId) " +
+            "FROM OrganizationMetadata metadata WHERE metadata.orgaId IN :orgaIds")
+    List<ParticipantVersion> getParticipantVersionsByOrgaIdIn(@Param("orgaIds") Collection<String> orgaIds);
+
+    @Query("SELECT new eu.merloteducation.organisationsorchestrator.models.ParticipantVersion(" +
+            "metadata.orgaId, metadata.metadataVersion, metadata.sdHash, metadata.signerId) " +
+            "FROM OrganizationMetadata metadata " +
+            "WHERE metadata.membershipClass = :membershipClass ORDER BY metadata.orgaId")
+    List<ParticipantVersion> getParticipantVersionsByMembershipClass(
+            @Param("membershipClass") MembershipClass membershipClass);
+
     void deleteByOrgaId(String merlotId);
 }
@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.repositories;
+
+import eu.merloteducation.organisationsorchestrator.models.ParticipantSdHash;
+import eu.merloteducation.organisationsorchestrator.models.entities.ParticipantDirectoryEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ParticipantDirectoryRepository extends JpaRepository<ParticipantDirectoryEntry, String> {
+    Page<ParticipantDirectoryEntry> findAllByActive(boolean active, Pageable pageable);
+
+    @Query("SELECT entry.participantId FROM ParticipantDirectoryEntry entry")
+    Page<String> getParticipantIds(Pageable pageable);
+
+    @Query("SELECT entry.participantId FROM ParticipantDirectoryEntry entry WHERE entry.active = :active")
+    Page<String> getParticipantIdsByActive(@Param("active") boolean active, Pageable pageable);
+
+    @Query("SELECT entry.sdHash FROM ParticipantDirectoryEntry entry WHERE entry.participantId = :participantId")
+    String getSdHashByParticipantId(@Param("participantId") String participantId);
+
+    @Query("SELECT new eu.merloteducation.organisationsorchestrator.models.ParticipantSdHash(" +
+            "entry.participantId, entry.sdHash) FROM ParticipantDirectoryEntry entry " +
+            "WHERE entry.participantId IN :participantIds")
+    List<ParticipantSdHash> getSdHashesByParticipantIdIn(@Param("participantIds") Collection<String> participantIds);
+
+    @Query("SELECT entry.participantId FROM ParticipantDirectoryEntry entry WHERE entry.updatedAt > :since")
+    List<String> getParticipantIdsUpdatedAfter(@Param("since") Instant since);
+
+    void deleteAllByParticipantIdNotInAndUpdatedAtLessThanEqual(Collection<String> participantIds, Instant updatedAt);
+
+    void deleteAllByUpdatedAtLessThanEqual(Instant updatedAt);
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.repositories;
+
+import eu.merloteducation.organisationsorchestrator.models.entities.SelfDescriptionCleanupRequest;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SelfDescriptionCleanupRequestRepository extends JpaRepository<SelfDescriptionCleanupRequest, String> {
+    // lock timeout -2 is SKIP LOCKED, requests being claimed by another instance are left to it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT request FROM SelfDescriptionCleanupRequest request " +
+            "WHERE request.claimedUntil IS NULL OR request.claimedUntil < :now ORDER BY request.requestedAt")
+    List<SelfDescriptionCleanupRequest> findUnclaimedForUpdate(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claim a batch of cleanup requests until the given time, so that no other instance picks them up
+     * in the meantime.
+     *
+     * @param claimedUntil end of the claim
+     * @param pageable batch to claim
+     * @return claimed cleanup requests
+     */
+    @Transactional
+    default List<SelfDescriptionCleanupRequest> claimBatch(Instant claimedUntil, Pageable pageable) {
+        List<SelfDescriptionCleanupRequest> cleanupRequests = findUnclaimedForUpdate(Instant.now(), pageable);
+        cleanupRequests.forEach(cleanupRequest -> cleanupRequest.setClaimedUntil(claimedUntil));
+        return saveAll(cleanupRequests);
+    }
+
+    @Transactional
+    void deleteByParticipantIdAndRequestedAt(String participantId, Instant requestedAt);
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.repositories;
+
+import eu.merloteducation.organisationsorchestrator.models.entities.TaskLease;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface TaskLeaseRepository extends JpaRepository<TaskLease, String> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lease FROM TaskLease lease WHERE lease.taskName = :taskName")
+    Optional<TaskLease> findForUpdate(@Param("taskName") String taskName);
+
+    /**
+     * Take or renew the lease of a task, unless another instance holds an unexpired lease of it.
+     * If two instances create the lease at the same time, the commit of one of them fails.
+     *
+     * @param taskName name of the task
+     * @param owner id of the instance
+     * @param leasedUntil end of the lease
+     * @return true if the instance holds the lease now
+     */
+    @Transactional
+    default boolean tryAcquire(String taskName, String owner, Instant leasedUntil) {
+        TaskLease lease = findForUpdate(taskName).orElse(null);
+        if (lease == null) {
+            save(new TaskLease(taskName, owner, leasedUntil, null));
+            return true;
+        }
+        if (!owner.equals(lease.getOwner()) && lease.getLeasedUntil() != null
+                && lease.getLeasedUntil().isAfter(Instant.now())) {
+            return false;
+        }
+        lease.setOwner(owner);
+        lease.setLeasedUntil(leasedUntil);
+        save(lease);
+        return true;
+    }
+
+    /**
+     * Record a successful run of a task by the holder of its lease.
+     *
+     * @param taskName name of the task
+     * @param owner id of the instance
+     * @param completedAt end of the run
+     */
+    @Transactional
+    default void complete(String taskName, String owner, Instant completedAt) {
+        findForUpdate(taskName)
+                .filter(lease -> owner.equals(lease.getOwner()))
+                .ifPresent(lease -> {
+                    lease.setCompletedAt(completedAt);
+                    save(lease);
+                });
+    }
+}
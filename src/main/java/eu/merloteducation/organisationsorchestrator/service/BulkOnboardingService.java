@@ -0,0 +1,298 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.organisationsorchestrator.config.AsyncConfig;
+import eu.merloteducation.organisationsorchestrator.models.BulkRegistrationResult;
+import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+@Service
+@Slf4j
+public class BulkOnboardingService {
+
+    private final RegistrationFormService registrationFormService;
+    private final ParticipantService participantService;
+    private final TaskExecutor onboardingTaskExecutor;
+    private final int maxForms;
+    private final long maxFormSizeBytes;
+    // forms running or waiting on the onboarding pool, requests are admitted only if all of their forms fit in
+    private final Semaphore onboardingCapacity;
+
+    public BulkOnboardingService(@Autowired RegistrationFormService registrationFormService,
+                                 @Autowired ParticipantService participantService,
+                                 @Autowired @Qualifier(AsyncConfig.ONBOARDING_TASK_EXECUTOR)
+                                 TaskExecutor onboardingTaskExecutor,
+                                 @Value("${onboarding.bulk.max-forms:200}") int maxForms,
+                                 @Value("${onboarding.bulk.max-form-size:2MB}") DataSize maxFormSize,
+                                 @Value("${async.onboarding.pool-size:4}") int onboardingPoolSize,
+                                 @Value("${async.onboarding.queue-capacity:1000}") int onboardingQueueCapacity) {
+        this.registrationFormService = registrationFormService;
+        this.participantService = participantService;
+        this.onboardingTaskExecutor = onboardingTaskExecutor;
+        this.maxForms = maxForms;
+        this.maxFormSizeBytes = maxFormSize.toBytes();
+        this.onboardingCapacity = new Semaphore(onboardingPoolSize + onboardingQueueCapacity);
+    }
+
+    /**
+     * Given uploaded registration forms or ZIP archives of them, return the contained registration forms.
+     * Forms contained in archives are spooled to temporary files that are removed once they were onboarded.
+     *
+     * @param files uploaded PDF or ZIP files
+     * @return registration forms
+     */
+    public List<MultipartFile> getRegistrationForms(MultipartFile[] files) {
+        List<MultipartFile> forms = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                if (isZipArchive(file)) {
+                    addRegistrationFormsFromArchive(file, forms);
+                } else if (file.getSize() > maxFormSizeBytes) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Registration form "
+                            + file.getOriginalFilename() + " exceeds the maximum size of " + maxFormSizeBytes
+                            + " bytes");
+                } else {
+                    forms.add(file);
+                }
+                if (forms.size() > maxForms) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Too many registration forms specified, at most " + maxForms + " are allowed");
+                }
+            }
+        } catch (RuntimeException e) {
+            forms.forEach(this::discardForm);
+            throw e;
+        }
+        if (forms.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No registration forms specified");
+        }
+        return forms;
+    }
+
+    /**
+     * Given registration forms, onboard the corresponding organizations on the onboarding worker pool and pass
+     * the result of each form to the given consumer as soon as it is available.
+     *
+     * @param forms registration forms
+     * @param activeRole the currently logged in role
+     * @param resultConsumer consumer of the results, called from the worker threads
+     * @return future that completes once all forms were processed
+     * @throws ResponseStatusException with status 503 if the onboarding pool cannot take all forms right now
+     */
+    public CompletableFuture<Void> onboardOrganizations(List<MultipartFile> forms,
+                                                        OrganizationRoleGrantedAuthority activeRole,
+                                                        Consumer<BulkRegistrationResult> resultConsumer) {
+        if (!onboardingCapacity.tryAcquire(forms.size())) {
+            forms.forEach(this::discardForm);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Onboarding capacity exhausted, retry later.");
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (MultipartFile form : forms) {
+            try {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        resultConsumer.accept(onboardOrganization(form, activeRole));
+                    } finally {
+                        releaseForm(form);
+                    }
+                }, onboardingTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                releaseForm(form);
+                resultConsumer.accept(new BulkRegistrationResult(form.getOriginalFilename(),
+                        BulkRegistrationResult.Status.FAILED, null, "Onboarding capacity exhausted, retry later."));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private void releaseForm(MultipartFile form) {
+        discardForm(form);
+        onboardingCapacity.release();
+    }
+
+    private void discardForm(MultipartFile form) {
+        if (form instanceof SpooledRegistrationForm spooledForm) {
+            spooledForm.delete();
+        }
+    }
+
+    private BulkRegistrationResult onboardOrganization(MultipartFile form, OrganizationRoleGrantedAuthority activeRole) {
+        try {
+            RegistrationFormContent content = registrationFormService.readRegistrationForm(form);
+            MerlotParticipantDto participant = participantService.createParticipant(content, activeRole);
+            return new BulkRegistrationResult(form.getOriginalFilename(), BulkRegistrationResult.Status.CREATED,
+                    participant.getId(), null);
+        } catch (ResponseStatusException e) {
+            return new BulkRegistrationResult(form.getOriginalFilename(), BulkRegistrationResult.Status.FAILED,
+                    null, e.getReason());
+        } catch (Exception e) {
+            // the result is sent to the client, so the details of unexpected failures are only logged
+            log.warn("Failed to onboard organization from {}", form.getOriginalFilename(), e);
+            return new BulkRegistrationResult(form.getOriginalFilename(), BulkRegistrationResult.Status.FAILED,
+                    null, "Invalid registration form file.");
+        }
+    }
+
+    private boolean isZipArchive(MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        return "application/zip".equals(file.getContentType())
+                || (fileName != null && fileName.toLowerCase().endsWith(".zip"));
+    }
+
+    private void addRegistrationFormsFromArchive(MultipartFile archive, List<MultipartFile> forms) {
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String entryName = entry.getName();
+                if (entry.isDirectory() || !entryName.toLowerCase().endsWith(".pdf")) {
+                    continue;
+                }
+                if (forms.size() >= maxForms) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Too many registration forms specified, at most " + maxForms + " are allowed");
+                }
+                String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+                forms.add(spoolEntry(zip, fileName));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read ZIP archive {}", archive.getOriginalFilename(), e);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid ZIP archive " + archive.getOriginalFilename() + ".");
+        }
+    }
+
+    private SpooledRegistrationForm spoolEntry(InputStream zip, String fileName) throws IOException {
+        Path path = Files.createTempFile("registration-form-", ".pdf");
+        try (OutputStream output = Files.newOutputStream(path)) {
+            // the declared entry size cannot be trusted, so stop copying as soon as the limit is exceeded
+            byte[] buffer = new byte[8192];
+            long size = 0;
+            int read;
+            while ((read = zip.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFormSizeBytes) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Registration form " + fileName
+                            + " exceeds the maximum size of " + maxFormSizeBytes + " bytes");
+                }
+                output.write(buffer, 0, read);
+            }
+            return new SpooledRegistrationForm(fileName, path, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * Registration form extracted from an archive, backed by a temporary file instead of the heap.
+     */
+    private static final class SpooledRegistrationForm implements MultipartFile {
+
+        private final String fileName;
+        private final Path path;
+        private final long size;
+
+        private SpooledRegistrationForm(String fileName, Path path, long size) {
+            this.fileName = fileName;
+            this.path = path;
+            this.size = size;
+        }
+
+        @Override
+        @NonNull
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return fileName;
+        }
+
+        @Override
+        public String getContentType() {
+            return MediaType.APPLICATION_PDF_VALUE;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        @NonNull
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        @NonNull
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(@NonNull File dest) throws IOException {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled registration form {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import eu.merloteducation.organisationsorchestrator.config.MessageQueueConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class MessageQueueMetricsService {
+
+    private static final List<String> MONITORED_QUEUES = List.of(
+            MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE,
+            MessageQueueConfig.ORGANIZATIONS_REQUEST_QUEUE,
+            MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE);
+
+    private final AmqpAdmin amqpAdmin;
+
+    private final Map<String, AtomicLong> queueDepths = new LinkedHashMap<>();
+
+    private final Map<String, AtomicLong> queueConsumers = new LinkedHashMap<>();
+
+    public MessageQueueMetricsService(@Autowired AmqpAdmin amqpAdmin,
+                                      @Autowired MeterRegistry meterRegistry) {
+        this.amqpAdmin = amqpAdmin;
+        for (String queue : MONITORED_QUEUES) {
+            AtomicLong depth = new AtomicLong();
+            AtomicLong consumers = new AtomicLong();
+            queueDepths.put(queue, depth);
+            queueConsumers.put(queue, consumers);
+            Gauge.builder("rabbitmq.queue.messages", depth, AtomicLong::get)
+                    .description("Messages waiting in the queue")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+            Gauge.builder("rabbitmq.queue.consumers", consumers, AtomicLong::get)
+                    .description("Consumers attached to the queue")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Periodically read the depth and consumer count of the request queues from the broker,
+     * so that scraping the gauges does not need a broker round trip.
+     */
+    @Scheduled(cron = "${messaging.queue-metrics.refresh-cron:*/15 * * * * *}")
+    public void refreshQueueMetrics() {
+        for (String queue : MONITORED_QUEUES) {
+            try {
+                QueueInformation queueInfo = amqpAdmin.getQueueInfo(queue);
+                if (queueInfo != null) {
+                    queueDepths.get(queue).set(queueInfo.getMessageCount());
+                    queueConsumers.get(queue).set(queueInfo.getConsumerCount());
+                }
+            } catch (Exception e) {
+                log.debug("Failed to read metrics of queue {}: {}", queue, e.getMessage());
+            }
+        }
+    }
+}
@@ -25,6 +25,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import eu.merloteducation.organisationsorchestrator.config.MessageQueueConfig;
 
+import java.util.List;
+import java.util.Map;
+
 @Service
 @Slf4j
 public class MessageQueueService {
@@ -43,7 +46,8 @@ public class MessageQueueService {
      * @param orgaId id of the organization to request details for
      * @return organization details
      */
-    @RabbitListener(queues = MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE)
+    @RabbitListener(queues = MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE,
+        containerFactory = MessageQueueConfig.REQUEST_LISTENER_CONTAINER_FACTORY)
     public MerlotParticipantDto organizationRequest(String orgaId) {
 
         log.info("Organization request message: {}", orgaId);
@@ -55,13 +59,33 @@ public class MessageQueueService {
         }
     }
 
+    /**
+     * Listen to requests of the details of multiple organizations on the message bus and return the organizations.
+     *
+     * @param orgaIds ids of the organizations to request details for
+     * @return map of organization id to organization details, unknown organizations are not contained
+     */
+    @RabbitListener(queues = MessageQueueConfig.ORGANIZATIONS_REQUEST_QUEUE,
+        containerFactory = MessageQueueConfig.REQUEST_LISTENER_CONTAINER_FACTORY)
+    public Map<String, MerlotParticipantDto> organizationsRequest(List<String> orgaIds) {
+
+        log.info("Organizations request message for {} organizations", orgaIds.size());
+        try {
+            return participantService.getParticipantsByIds(orgaIds);
+        } catch (Exception e) {
+            log.error("Failed to find participants with these ids, error: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Listen to requests of organization connector details on the message bus and return the organization connector.
      *
      * @param connectorDetailsRequest request of organization connector details
      * @return connector details
      */
-    @RabbitListener(queues = MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE)
+    @RabbitListener(queues = MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE,
+        containerFactory = MessageQueueConfig.REQUEST_LISTENER_CONTAINER_FACTORY)
     public OrganizationConnectorTransferDto organizationConnectorRequest(ConnectorDetailsRequest connectorDetailsRequest) {
 
         log.info("Organization Connector request message: {}", connectorDetailsRequest.getOrgaId());
@@ -16,28 +16,66 @@
 
 package eu.merloteducation.organisationsorchestrator.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import eu.merloteducation.modelslib.api.organization.MembershipClass;
 import eu.merloteducation.modelslib.api.organization.MerlotParticipantMetaDto;
+import eu.merloteducation.modelslib.api.organization.OrganisationSignerConfigDto;
 import eu.merloteducation.modelslib.api.organization.OrganizationConnectorTransferDto;
 import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
-import eu.merloteducation.organisationsorchestrator.models.entities.OrganisationConnectorExtension;
+import eu.merloteducation.organisationsorchestrator.models.ParticipantVersion;
+import eu.merloteducation.organisationsorchestrator.models.entities.OrganisationConnectorExtensionId;
 import eu.merloteducation.organisationsorchestrator.models.entities.OrganizationMetadata;
 import eu.merloteducation.organisationsorchestrator.models.exceptions.ParticipantConflictException;
+import eu.merloteducation.organisationsorchestrator.repositories.OrganisationConnectorExtensionRepository;
 import eu.merloteducation.organisationsorchestrator.repositories.OrganizationMetadataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrganizationMetadataService {
+    private static final String CONNECTOR_CACHE_NAME = "connectorTransfers";
     private final OrganizationMetadataRepository repository;
+    private final OrganisationConnectorExtensionRepository connectorRepository;
     private final OrganizationMapper mapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    // connectors are requested by the other orchestrators for every transfer, the cached dtos must not be modified
+    private final Cache<OrganisationConnectorExtensionId, CachedConnector> connectorCache;
 
     public OrganizationMetadataService(@Autowired OrganizationMetadataRepository repository,
-                                       @Autowired OrganizationMapper mapper) {
+                                       @Autowired OrganisationConnectorExtensionRepository connectorRepository,
+                                       @Autowired OrganizationMapper mapper,
+                                       @Autowired MeterRegistry meterRegistry,
+                                       @Autowired PlatformTransactionManager transactionManager,
+                                       @Value("${cache.connectors.ttl:PT5M}") Duration connectorCacheTtl,
+                                       @Value("${cache.connectors.max-size:1000}") long connectorCacheMaxSize) {
         this.repository = repository;
+        this.connectorRepository = connectorRepository;
         this.mapper = mapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.connectorCache = Caffeine.newBuilder()
+                .expireAfterWrite(connectorCacheTtl)
+                .maximumSize(connectorCacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, connectorCache, CONNECTOR_CACHE_NAME);
     }
 
     /**
@@ -46,23 +84,73 @@ public class OrganizationMetadataService {
      * @param orgaId the id of the participant
      * @return metadata of the participant
      */
+    @Transactional
     public MerlotParticipantMetaDto getMerlotParticipantMetaDto(String orgaId) {
 
-        OrganizationMetadata dbMeta = repository.findById(orgaId).orElse(null);
+        OrganizationMetadata dbMeta = repository.findWithDetailsByOrgaId(orgaId).orElse(null);
 
         return mapper.organizationMetadataToMerlotParticipantMetaDto(dbMeta);
     }
 
+    /**
+     * Given a participant's id, return its metadata without signer config and certificates,
+     * so no secrets need to be decrypted.
+     *
+     * @param orgaId the id of the participant
+     * @return metadata of the participant
+     */
+    @Transactional
+    public MerlotParticipantMetaDto getMerlotParticipantMetaDtoWithoutSecrets(String orgaId) {
+
+        OrganizationMetadata dbMeta = repository.findWithConnectorsByOrgaId(orgaId).orElse(null);
+
+        return mapper.organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets(dbMeta);
+    }
+
+    /**
+     * Given a participant's id, return only its signer config.
+     *
+     * @param orgaId the id of the participant
+     * @return signer config of the participant or null if there is none
+     */
+    @Transactional
+    public OrganisationSignerConfigDto getSignerConfigDto(String orgaId) {
+
+        return repository.findWithSignerConfigByOrgaId(orgaId)
+            .map(OrganizationMetadata::getOrganisationSignerConfig)
+            .map(mapper::organisationSignerConfigToOrganisationSignerConfigDto)
+            .orElse(null);
+    }
+
+    /**
+     * Given a collection of participant ids, return their metadata in a single query.
+     * Signer config and certificates are not contained, so no secrets need to be decrypted.
+     *
+     * @param orgaIds the ids of the participants
+     * @return map of participant id to metadata, ids without metadata are not contained
+     */
+    @Transactional
+    public Map<String, MerlotParticipantMetaDto> getMerlotParticipantMetaDtos(Collection<String> orgaIds) {
+
+        if (orgaIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return repository.findAllByOrgaIdIn(orgaIds).stream()
+            .map(mapper::organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets)
+            .collect(Collectors.toMap(MerlotParticipantMetaDto::getOrgaId, Function.identity()));
+    }
+
     /**
      * Given the metadata for a new participant, attempt to save the metadata in the database.
      *
      * @param metaDto dto with metadata of the new participant
      * @return metadata of the new participant
      */
+    @Transactional
     public MerlotParticipantMetaDto saveMerlotParticipantMeta(MerlotParticipantMetaDto metaDto) {
 
-        OrganizationMetadata dbMeta = repository.findById(metaDto.getOrgaId()).orElse(null);
-        if (dbMeta != null) {
+        if (repository.existsById(metaDto.getOrgaId())) {
             throw new ParticipantConflictException("Participant with this id already exists");
         }
         OrganizationMetadata metadata = mapper.merlotParticipantMetaDtoToOrganizationMetadata(metaDto);
@@ -76,32 +164,55 @@ public class OrganizationMetadataService {
      * @param metaDtoWithEdits dto with updated fields
      * @return metadata of the participant
      */
+    @Transactional
     public MerlotParticipantMetaDto updateMerlotParticipantMeta(MerlotParticipantMetaDto metaDtoWithEdits) {
 
         String orgaId = metaDtoWithEdits.getOrgaId();
 
-        OrganizationMetadata dbMetadata = repository.findById(orgaId).orElse(null);
+        OrganizationMetadata dbMetadata = repository.findWithDetailsByOrgaId(orgaId).orElse(null);
 
         if (dbMetadata == null) {
             return null;
         }
 
         mapper.updateOrganizationMetadataWithMerlotParticipantMetaDto(metaDtoWithEdits, dbMetadata);
+        // self-descriptions are only updated together with the metadata, so this also covers changes to them
+        dbMetadata.setMetadataVersion(dbMetadata.getMetadataVersion() + 1);
+        invalidateConnectorsAfterCommit(orgaId);
 
         return mapper.organizationMetadataToMerlotParticipantMetaDto(repository.save(dbMetadata));
     }
 
     /**
      * Given a membership class, return the participants with that membership class.
+     * Signer config and certificates are not contained, so no secrets need to be decrypted.
      *
      * @param membershipClass membership class
      * @return list of participants
      */
+    @Transactional
     public List<MerlotParticipantMetaDto> getParticipantsByMembershipClass(MembershipClass membershipClass) {
 
         List<OrganizationMetadata> orgaMetadataList = repository.findByMembershipClass(membershipClass);
         return orgaMetadataList.stream()
-            .map(mapper::organizationMetadataToMerlotParticipantMetaDto).toList();
+            .map(mapper::organizationMetadataToMerlotParticipantMetaDtoWithoutSecrets).toList();
+    }
+
+    /**
+     * Given a participant's id, store the hash and signer of its current self-description, so that they change
+     * together with the metadata version.
+     *
+     * @param orgaId the id of the participant
+     * @param sdHash hash of the self-description or null if it is not known
+     * @param signerId DID of the signer of the self-description or null if it is not known
+     */
+    @Transactional
+    public void updateSelfDescriptionVersion(String orgaId, String sdHash, String signerId) {
+
+        repository.findById(orgaId).ifPresent(metadata -> {
+            metadata.setSdHash(sdHash);
+            metadata.setSignerId(signerId);
+        });
     }
 
     /**
@@ -115,23 +226,53 @@ public class OrganizationMetadataService {
 
     /**
      * Given a participant's id and the connector id, return the connector.
+     * Found connectors are cached together with the metadata version of the participant. Each call only reads the
+     * current version to validate the cached connector, so connectors updated through other instances are not served.
      *
      * @param orgaId the id of the participant
      * @param connectorId the connector id
-     * @return connector
+     * @return connector or null if the participant has no such connector
      */
     public OrganizationConnectorTransferDto getConnectorForParticipant(String orgaId, String connectorId) {
 
-        OrganizationMetadata dbMeta = repository.findById(orgaId).orElse(null);
-        OrganisationConnectorExtension connector = null;
+        Long metadataVersion = repository.getMetadataVersionByOrgaId(orgaId).orElse(null);
+        if (metadataVersion == null) {
+            return null;
+        }
+
+        OrganisationConnectorExtensionId id = new OrganisationConnectorExtensionId(orgaId, connectorId);
+        CachedConnector cached = connectorCache.getIfPresent(id);
+        if (cached != null && cached.metadataVersion() == metadataVersion) {
+            return cached.connector();
+        }
 
-        if (dbMeta != null) {
-            connector = dbMeta.getConnectors().stream()
-                .filter(con -> con.getConnectorId().equals(connectorId))
-                .findFirst().orElse(null);
+        // the version was read before the connector, so a concurrent update can only cause another reload later
+        OrganizationConnectorTransferDto connector = readOnlyTransactionTemplate.execute(status ->
+            connectorRepository.findByOrgaIdAndConnectorId(orgaId, connectorId)
+                .map(mapper::connectorExtensionToOrganizationConnectorTransferDto)
+                .orElse(null));
+        if (connector != null) {
+            connectorCache.put(id, new CachedConnector(metadataVersion, connector));
         }
+        return connector;
+    }
 
-        return connector != null ? mapper.connectorExtensionToOrganizationConnectorTransferDto(connector) : null;
+    private void invalidateConnectors(String orgaId) {
+        connectorCache.asMap().keySet().removeIf(id -> id.getOrgaId().equals(orgaId));
+    }
+
+    private void invalidateConnectorsAfterCommit(String orgaId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateConnectors(orgaId);
+            return;
+        }
+        // connectors loaded before the commit would still be the old ones, so only invalidate afterwards
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateConnectors(orgaId);
+            }
+        });
     }
 
     /**
@@ -145,4 +286,33 @@ public class OrganizationMetadataService {
         return repository.getOrgaIdByMembershipClass(membershipClass);
     }
 
-}
\ No newline at end of file
+    /**
+     * Given participant ids, return the versions of these participants without loading their metadata.
+     *
+     * @param orgaIds participant ids
+     * @return map of participant id to version, participants without metadata are not contained
+     */
+    public Map<String, ParticipantVersion> getParticipantVersions(Collection<String> orgaIds) {
+
+        if (orgaIds.isEmpty()) {
+            return Map.of();
+        }
+        return repository.getParticipantVersionsByOrgaIdIn(orgaIds).stream()
+                .collect(Collectors.toMap(ParticipantVersion::orgaId, Function.identity()));
+    }
+
+    /**
+     * Given a membership class, return the versions of the participants with that membership class.
+     *
+     * @param membershipClass membership class
+     * @return list of participant versions ordered by participant id
+     */
+    public List<ParticipantVersion> getParticipantVersionsByMembershipClass(MembershipClass membershipClass) {
+
+        return repository.getParticipantVersionsByMembershipClass(membershipClass);
+    }
+
+    private record CachedConnector(long metadataVersion, OrganizationConnectorTransferDto connector) {
+    }
+
+}
@@ -19,20 +19,35 @@ package eu.merloteducation.organisationsorchestrator.service;
 import eu.merloteducation.modelslib.api.did.ParticipantDidPrivateKeyCreateRequest;
 import eu.merloteducation.modelslib.api.did.ParticipantDidPrivateKeyDto;
 import eu.merloteducation.organisationsorchestrator.config.MessageQueueConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @Slf4j
 public class OutgoingMessageService {
 
+    private static final String DID_SERVICE_TIMER = "did.service.request";
+
     private final RabbitTemplate rabbitTemplate;
 
-    public OutgoingMessageService(@Autowired RabbitTemplate rabbitTemplate) {
+    private final AsyncRabbitTemplate asyncRabbitTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    public OutgoingMessageService(@Autowired RabbitTemplate rabbitTemplate,
+                                  @Autowired AsyncRabbitTemplate asyncRabbitTemplate,
+                                  @Autowired MeterRegistry meterRegistry) {
         this.rabbitTemplate = rabbitTemplate;
+        this.asyncRabbitTemplate = asyncRabbitTemplate;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -50,15 +65,29 @@ public class OutgoingMessageService {
         );
     }
 
-    public ParticipantDidPrivateKeyDto requestNewDidPrivateKey(ParticipantDidPrivateKeyCreateRequest request) {
+    /**
+     * Request a new DID and private key from the DID service without blocking the calling thread.
+     * The returned future completes exceptionally if no reply arrives within the configured reply timeout.
+     *
+     * @param request request containing the subject of the DID
+     * @return future of the created DID and private key
+     */
+    public CompletableFuture<ParticipantDidPrivateKeyDto> requestNewDidPrivateKeyAsync(
+            ParticipantDidPrivateKeyCreateRequest request) {
         log.info("Requesting a new DID and private key for subject {}", request.getSubject());
 
-        return rabbitTemplate.convertSendAndReceiveAsType(
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<ParticipantDidPrivateKeyDto> reply = asyncRabbitTemplate.convertSendAndReceiveAsType(
                 MessageQueueConfig.DID_SERVICE_EXCHANGE,
                 MessageQueueConfig.DID_PRIVATE_KEY_REQUEST_KEY,
                 request,
                 new ParameterizedTypeReference<>() {
                 }
         );
+        return reply.whenComplete((didPrivateKeyDto, ex) -> sample.stop(Timer.builder(DID_SERVICE_TIMER)
+                .description("Round trip time of DID and private key requests to the DID service")
+                .tag("outcome", ex == null ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)));
     }
 }
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import eu.merloteducation.modelslib.api.did.ParticipantDidPrivateKeyDto;
+import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateDto;
+
+/**
+ * Results of the external calls made while creating a participant. A creation that is resumed after a failure
+ * passes the results recorded before, so that no second DID or DAPS certificate is requested for the participant.
+ */
+public interface ParticipantCreationProgress {
+
+    /**
+     * Progress of a creation that is not resumed and whose results are not recorded.
+     */
+    ParticipantCreationProgress NONE = new ParticipantCreationProgress() {
+    };
+
+    /**
+     * Return the DID and private key issued before or null if none was issued yet.
+     *
+     * @return issued DID and private key
+     */
+    default ParticipantDidPrivateKeyDto getIssuedDid() {
+        return null;
+    }
+
+    /**
+     * Record the DID and private key issued for the participant.
+     *
+     * @param didPrivateKey issued DID and private key
+     */
+    default void didIssued(ParticipantDidPrivateKeyDto didPrivateKey) {
+    }
+
+    /**
+     * Return the DAPS certificate issued before or null if none was issued yet.
+     *
+     * @return issued DAPS certificate
+     */
+    default OmejdnConnectorCertificateDto getIssuedDapsCertificate() {
+        return null;
+    }
+
+    /**
+     * Record the DAPS certificate issued for the participant.
+     *
+     * @param certificate issued DAPS certificate
+     */
+    default void dapsCertificateIssued(OmejdnConnectorCertificateDto certificate) {
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryUriItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.gx.participants.GxLegalParticipantCredentialSubject;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.merlot.participants.MerlotLegalParticipantCredentialSubject;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantMetaDto;
+import eu.merloteducation.organisationsorchestrator.models.entities.ParticipantDirectoryEntry;
+import eu.merloteducation.organisationsorchestrator.models.entities.TaskLease;
+import eu.merloteducation.organisationsorchestrator.repositories.ParticipantDirectoryRepository;
+import eu.merloteducation.organisationsorchestrator.repositories.TaskLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+@Service
+@Slf4j
+public class ParticipantDirectoryService {
+
+    private static final Sort DIRECTORY_SORT = Sort.by("nameSortKey", "participantId");
+
+    private static final String RECONCILE_TASK = "participant-directory-reconcile";
+
+    private final ParticipantDirectoryRepository repository;
+    private final TaskLeaseRepository taskLeaseRepository;
+    private final GxfsCatalogService gxfsCatalogService;
+    private final OrganizationMetadataService organizationMetadataService;
+    private final ObjectMapper objectMapper;
+    private final int reconcilePageSize;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final Duration reconcileLease;
+
+    // identifies this instance as holder of the reconcile lease
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final TaskExecutor reconcileExecutor = new SimpleAsyncTaskExecutor("directory-reconcile-");
+
+    // the directory is only used for serving requests once it was reconciled with the catalog
+    private volatile boolean ready = false;
+
+    public ParticipantDirectoryService(@Autowired ParticipantDirectoryRepository repository,
+                                       @Autowired TaskLeaseRepository taskLeaseRepository,
+                                       @Autowired GxfsCatalogService gxfsCatalogService,
+                                       @Autowired OrganizationMetadataService organizationMetadataService,
+                                       @Autowired ObjectMapper objectMapper,
+                                       @Autowired PlatformTransactionManager transactionManager,
+                                       @Value("${participant-directory.reconcile-page-size:100}") int reconcilePageSize,
+                                       @Value("${participant-directory.reconcile-lease:PT10M}") Duration reconcileLease) {
+        this.repository = repository;
+        this.taskLeaseRepository = taskLeaseRepository;
+        this.gxfsCatalogService = gxfsCatalogService;
+        this.organizationMetadataService = organizationMetadataService;
+        this.objectMapper = objectMapper;
+        this.reconcilePageSize = reconcilePageSize;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcileLease = reconcileLease;
+    }
+
+    /**
+     * Return whether the directory has been reconciled with the catalog and can be used to list participants.
+     *
+     * @return true if the directory is ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Given a page request, return the directory entries of this page ordered by participant name.
+     *
+     * @param pageable page request, any requested sort is replaced by the name order
+     * @param includeInactive whether inactive participants should be listed as well
+     * @return page of directory entries
+     */
+    public Page<ParticipantDirectoryEntry> getEntries(Pageable pageable, boolean includeInactive) {
+        Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DIRECTORY_SORT);
+        if (includeInactive) {
+            return repository.findAll(sortedPageable);
+        }
+        return repository.findAllByActive(true, sortedPageable);
+    }
+
+    /**
+     * Given a page request, return the participant ids of this page in the same order as {@link #getEntries}.
+     *
+     * @param pageable page request, any requested sort is replaced by the name order
+     * @param includeInactive whether inactive participants should be listed as well
+     * @return page of participant ids
+     */
+    public Page<String> getParticipantIds(Pageable pageable, boolean includeInactive) {
+        Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DIRECTORY_SORT);
+        if (includeInactive) {
+            return repository.getParticipantIds(sortedPageable);
+        }
+        return repository.getParticipantIdsByActive(true, sortedPageable);
+    }
+
+    /**
+     * Given a participant ID, return the hash of its self-description in the directory.
+     * Entries are shared by all instances, so this reflects updates made by any of them.
+     *
+     * @param participantId participant id
+     * @return hash of the self-description or null if it is not known
+     */
+    public String getSdHash(String participantId) {
+        return repository.getSdHashByParticipantId(participantId);
+    }
+
+    /**
+     * Given participant IDs, return the hashes of their self-descriptions in the directory in a single query.
+     *
+     * @param participantIds participant ids
+     * @return map of participant id to hash, participants without a known hash are not contained
+     */
+    public Map<String, String> getSdHashes(Collection<String> participantIds) {
+        if (participantIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> sdHashes = new HashMap<>();
+        repository.getSdHashesByParticipantIdIn(participantIds).stream()
+                .filter(sdHash -> sdHash.sdHash() != null)
+                .forEach(sdHash -> sdHashes.put(sdHash.participantId(), sdHash.sdHash()));
+        return sdHashes;
+    }
+
+    /**
+     * Given a directory entry, return its self-description.
+     *
+     * @param entry directory entry
+     * @return self-description of the participant
+     * @throws JsonProcessingException failed to read the stored self-description
+     */
+    public ExtendedVerifiablePresentation getSelfDescription(ParticipantDirectoryEntry entry)
+            throws JsonProcessingException {
+        return objectMapper.readValue(entry.getSelfDescription(), ExtendedVerifiablePresentation.class);
+    }
+
+    /**
+     * Given the self-description and metadata of a participant, create or update its directory entry.
+     * Within a transaction the entry is only written once that transaction has been committed.
+     *
+     * @param selfDescription self-description of the participant
+     * @param sdHash hash of the self-description or null if it is not known
+     * @param metaDto metadata of the participant
+     */
+    public void updateEntry(ExtendedVerifiablePresentation selfDescription, String sdHash,
+                            MerlotParticipantMetaDto metaDto) {
+        ParticipantDirectoryEntry entry;
+        try {
+            entry = toEntry(selfDescription, sdHash, metaDto);
+        } catch (Exception e) {
+            log.warn("Failed to update directory entry of participant {}: {}", metaDto.getOrgaId(), e.getMessage());
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            saveEntry(entry);
+            return;
+        }
+        // a failing write must not mark the calling transaction for rollback after the catalog was already changed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                saveEntry(entry);
+            }
+        });
+    }
+
+    private void saveEntry(ParticipantDirectoryEntry entry) {
+        try {
+            // the committed transaction is still bound during its after commit callbacks, so use a new one
+            newTransactionTemplate.executeWithoutResult(status -> {
+                entry.setUpdatedAt(Instant.now());
+                repository.save(entry);
+            });
+        } catch (Exception e) {
+            // the entry is corrected by the next reconciliation, so do not fail the calling operation
+            log.warn("Failed to update directory entry of participant {}: {}", entry.getParticipantId(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Reconcile the directory in the background as soon as the application is ready instead of waiting for the first
+     * scheduled run. Until then participants are listed from the catalog.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcileExecutor.execute(this::reconcile);
+    }
+
+    /**
+     * Periodically replace the directory content with the participants currently enrolled in the catalog.
+     * The catalog is queried outside of any transaction and the directory is only replaced after a complete pass,
+     * so a failed pass leaves the previous content untouched. Entries written after the pass started are kept as they
+     * are, as they may be newer than the catalog pages read before.
+     * The directory is shared, so only the instance holding the reconcile lease scans the catalog.
+     */
+    @Scheduled(cron = "${participant-directory.reconcile-cron:0 */5 * * * *}")
+    public void reconcile() {
+        // entries written by creations and updates from now on are newer than the catalog pages read below
+        Instant snapshotStart = Instant.now();
+        try {
+            if (!acquireReconcileLease()) {
+                // another instance reconciles the directory, it can be used as soon as that happened once
+                if (!ready) {
+                    ready = taskLeaseRepository.findById(RECONCILE_TASK).map(TaskLease::getCompletedAt).isPresent();
+                }
+                return;
+            }
+            Map<String, ParticipantDirectoryEntry> entries = new HashMap<>();
+            long offset = 0;
+            long totalCount;
+            do {
+                GXFSCatalogListResponse<GXFSQueryUriItem> uriResponse = gxfsCatalogService.getSortedParticipantUriPage(
+                        GxLegalParticipantCredentialSubject.TYPE_CLASS, "name", offset, reconcilePageSize);
+                totalCount = uriResponse.getTotalCount();
+                String[] participantUris = uriResponse.getItems().stream()
+                        .map(GXFSQueryUriItem::getUri).toArray(String[]::new);
+                if (participantUris.length == 0) {
+                    break;
+                }
+                fetchPage(participantUris, entries, snapshotStart);
+                offset += participantUris.length;
+            } while (offset < totalCount);
+
+            transactionTemplate.executeWithoutResult(status -> replaceEntries(entries, snapshotStart));
+            taskLeaseRepository.complete(RECONCILE_TASK, instanceId, Instant.now());
+            ready = true;
+            log.debug("Reconciled participant directory with {} participants.", entries.size());
+        } catch (Exception e) {
+            log.warn("Failed to reconcile participant directory with catalog: {}", e.getMessage());
+        }
+    }
+
+    private boolean acquireReconcileLease() {
+        try {
+            return taskLeaseRepository.tryAcquire(RECONCILE_TASK, instanceId, Instant.now().plus(reconcileLease));
+        } catch (Exception e) {
+            // e.g. another instance created the lease at the same time
+            log.debug("Failed to acquire participant directory reconcile lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void replaceEntries(Map<String, ParticipantDirectoryEntry> entries, Instant snapshotStart) {
+        Set<String> updatedIds = new HashSet<>(repository.getParticipantIdsUpdatedAfter(snapshotStart));
+        repository.saveAll(entries.values().stream()
+                .filter(entry -> !updatedIds.contains(entry.getParticipantId()))
+                .toList());
+        if (entries.isEmpty()) {
+            repository.deleteAllByUpdatedAtLessThanEqual(snapshotStart);
+        } else {
+            repository.deleteAllByParticipantIdNotInAndUpdatedAtLessThanEqual(entries.keySet(), snapshotStart);
+        }
+    }
+
+    private void fetchPage(String[] participantUris, Map<String, ParticipantDirectoryEntry> entries,
+                           Instant snapshotStart) throws JsonProcessingException {
+        Map<String, SelfDescriptionItem> sdItems = new HashMap<>();
+        for (SelfDescriptionItem item : gxfsCatalogService.getSelfDescriptionsByIds(participantUris).getItems()) {
+            String id = item.getMeta().getContent()
+                    .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class).getId();
+            sdItems.put(id, item);
+        }
+
+        Map<String, MerlotParticipantMetaDto> metadataMap =
+                organizationMetadataService.getMerlotParticipantMetaDtos(sdItems.keySet());
+
+        for (Map.Entry<String, SelfDescriptionItem> sdItem : sdItems.entrySet()) {
+            MerlotParticipantMetaDto metaDto = metadataMap.get(sdItem.getKey());
+            if (metaDto == null) {
+                // participants without metadata cannot be listed
+                continue;
+            }
+            ParticipantDirectoryEntry entry = toEntry(sdItem.getValue().getMeta().getContent(),
+                    sdItem.getValue().getMeta().getSdHash(), metaDto);
+            entry.setUpdatedAt(snapshotStart);
+            entries.put(sdItem.getKey(), entry);
+        }
+    }
+
+    private ParticipantDirectoryEntry toEntry(ExtendedVerifiablePresentation selfDescription, String sdHash,
+                                              MerlotParticipantMetaDto metaDto) throws JsonProcessingException {
+        GxLegalParticipantCredentialSubject legalParticipantCs =
+                selfDescription.findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class);
+        MerlotLegalParticipantCredentialSubject merlotLegalParticipantCs =
+                selfDescription.findFirstCredentialSubjectByType(MerlotLegalParticipantCredentialSubject.class);
+
+        ParticipantDirectoryEntry entry = new ParticipantDirectoryEntry();
+        entry.setParticipantId(metaDto.getOrgaId());
+        entry.setName(legalParticipantCs.getName());
+        entry.setNameSortKey(legalParticipantCs.getName() == null ? "" : legalParticipantCs.getName().toLowerCase());
+        entry.setLegalName(merlotLegalParticipantCs == null ? null : merlotLegalParticipantCs.getLegalName());
+        entry.setMembershipClass(metaDto.getMembershipClass());
+        entry.setActive(metaDto.isActive());
+        entry.setSdHash(sdHash);
+        entry.setSelfDescription(objectMapper.writeValueAsString(selfDescription));
+        return entry;
+    }
+}
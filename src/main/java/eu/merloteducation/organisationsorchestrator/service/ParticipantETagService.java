@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import eu.merloteducation.modelslib.api.organization.MembershipClass;
+import eu.merloteducation.organisationsorchestrator.models.ParticipantVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Service
+public class ParticipantETagService {
+
+    private final ParticipantDirectoryService participantDirectoryService;
+    private final OrganizationMetadataService organizationMetadataService;
+    private final SignerLegalNameService signerLegalNameService;
+
+    public ParticipantETagService(@Autowired ParticipantDirectoryService participantDirectoryService,
+                                  @Autowired OrganizationMetadataService organizationMetadataService,
+                                  @Autowired SignerLegalNameService signerLegalNameService) {
+        this.participantDirectoryService = participantDirectoryService;
+        this.organizationMetadataService = organizationMetadataService;
+        this.signerLegalNameService = signerLegalNameService;
+    }
+
+    /**
+     * Given a participant id and the requester, return the ETag of the participant response.
+     *
+     * @param orgaId participant id
+     * @param authentication authentication of the requester
+     * @param activeRole active role of the requester or null
+     * @return ETag or null if the participant is unknown or the directory is not ready yet
+     */
+    public String getParticipantETag(String orgaId, Authentication authentication, String activeRole) {
+        if (!participantDirectoryService.isReady()) {
+            return null;
+        }
+        ParticipantVersion version = organizationMetadataService.getParticipantVersions(List.of(orgaId)).get(orgaId);
+        if (version == null) {
+            return null;
+        }
+        return toETag("participant", List.of(version), authentication, activeRole);
+    }
+
+    /**
+     * Given the requester, return the ETag of the federator list response.
+     *
+     * @param authentication authentication of the requester
+     * @param activeRole active role of the requester or null
+     * @return ETag or null if the directory is not ready yet
+     */
+    public String getFederatorsETag(Authentication authentication, String activeRole) {
+        if (!participantDirectoryService.isReady()) {
+            return null;
+        }
+        return toETag("federators",
+                organizationMetadataService.getParticipantVersionsByMembershipClass(MembershipClass.FEDERATOR),
+                authentication, activeRole);
+    }
+
+    /**
+     * Given a page request and the requester, return the ETag of the participant page response.
+     *
+     * @param pageable page request
+     * @param authentication authentication of the requester
+     * @param activeRole active role of the requester or null
+     * @return ETag or null if the directory is not ready yet
+     */
+    public String getParticipantsETag(Pageable pageable, Authentication authentication, String activeRole) {
+        if (!participantDirectoryService.isReady()) {
+            return null;
+        }
+        boolean includeInactive = activeRole != null && new OrganizationRoleGrantedAuthority(activeRole).isFedAdmin();
+        Page<String> participantIds = participantDirectoryService.getParticipantIds(pageable, includeInactive);
+        Map<String, ParticipantVersion> versions =
+                organizationMetadataService.getParticipantVersions(participantIds.getContent());
+
+        // keep the page order, participants without metadata are not listed
+        List<ParticipantVersion> pageVersions = participantIds.getContent().stream()
+                .map(id -> versions.getOrDefault(id, new ParticipantVersion(id, -1, null, null)))
+                .toList();
+        return toETag("participants " + pageable.getPageNumber() + " " + pageable.getPageSize() + " "
+                + participantIds.getTotalElements(), pageVersions, authentication, activeRole);
+    }
+
+    private String toETag(String resource, List<ParticipantVersion> versions, Authentication authentication,
+                          String activeRole) {
+        StringBuilder content = new StringBuilder(resource);
+
+        // the fields shown in the response depend on the roles of the requester
+        content.append("\nrole ").append(activeRole);
+        if (authentication != null) {
+            authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .sorted()
+                    .forEach(authority -> content.append("\nauthority ").append(authority));
+        }
+
+        // the responses show the legal name of the signer, which changes independently of the signed participant
+        Map<String, String> signerLegalNames = signerLegalNameService.getLegalNamesForSigners(versions.stream()
+                .map(ParticipantVersion::signerId).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        for (ParticipantVersion version : versions) {
+            content.append("\nparticipant ").append(version.orgaId())
+                    .append(' ').append(version.metadataVersion())
+                    .append(' ').append(version.sdHash())
+                    .append(' ').append(version.signerId() == null ? null : signerLegalNames.get(version.signerId()));
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
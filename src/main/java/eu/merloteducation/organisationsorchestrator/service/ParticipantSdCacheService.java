@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+@Service
+@Slf4j
+public class ParticipantSdCacheService {
+
+    private static final String CACHE_NAME = "participantSelfDescriptions";
+
+    private final ObjectMapper objectMapper;
+
+    // self-descriptions are kept serialized so that callers editing a returned instance cannot alter the cache
+    private final Cache<String, CachedSelfDescription> sdCache;
+
+    public ParticipantSdCacheService(@Autowired ObjectMapper objectMapper,
+                                     @Autowired MeterRegistry meterRegistry,
+                                     @Value("${cache.participant-sds.ttl:PT10M}") Duration ttl,
+                                     @Value("${cache.participant-sds.max-size:1000}") long maxSize) {
+        this.objectMapper = objectMapper;
+        this.sdCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sdCache, CACHE_NAME);
+    }
+
+    /**
+     * Given a participant ID, return a copy of the cached self-description of this participant.
+     *
+     * @param participantId participant id
+     * @return self-description or null if it is not cached
+     */
+    public ExtendedVerifiablePresentation getSelfDescription(String participantId) {
+        return getSelfDescription(participantId, null);
+    }
+
+    /**
+     * Given a participant ID and the hash of its current self-description, return a copy of the cached
+     * self-description of this participant if it was cached with this hash.
+     *
+     * @param participantId participant id
+     * @param sdHash hash of the current self-description or null if any cached self-description may be returned
+     * @return self-description or null if it is not cached or outdated
+     */
+    public ExtendedVerifiablePresentation getSelfDescription(String participantId, String sdHash) {
+        CachedSelfDescription cached = sdCache.getIfPresent(participantId);
+        if (cached == null) {
+            return null;
+        }
+        if (sdHash != null && !sdHash.equals(cached.sdHash())) {
+            // changed in the meantime, e.g. by another instance
+            sdCache.invalidate(participantId);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(cached.content(), ExtendedVerifiablePresentation.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to read cached self-description of participant {}: {}", participantId, e.getMessage());
+            sdCache.invalidate(participantId);
+            return null;
+        }
+    }
+
+    /**
+     * Given a participant ID, store the current self-description of this participant.
+     *
+     * @param participantId participant id
+     * @param sdHash hash of the self-description or null if it is not known
+     * @param selfDescription self-description of the participant
+     */
+    public void putSelfDescription(String participantId, String sdHash, ExtendedVerifiablePresentation selfDescription) {
+        try {
+            sdCache.put(participantId,
+                    new CachedSelfDescription(sdHash, objectMapper.writeValueAsString(selfDescription)));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to cache self-description of participant {}: {}", participantId, e.getMessage());
+            sdCache.invalidate(participantId);
+        }
+    }
+
+    /**
+     * Given a participant ID, store the self-description of this participant if the cached entry has a different hash.
+     *
+     * @param participantId participant id
+     * @param sdHash hash of the self-description in the catalog
+     * @param selfDescription self-description of the participant
+     */
+    public void putSelfDescriptionIfChanged(String participantId, String sdHash,
+                                            ExtendedVerifiablePresentation selfDescription) {
+        CachedSelfDescription cached = sdCache.getIfPresent(participantId);
+        if (cached == null || sdHash == null || !Objects.equals(cached.sdHash(), sdHash)) {
+            putSelfDescription(participantId, sdHash, selfDescription);
+        }
+    }
+
+    /**
+     * Remove the cached self-description of the given participant.
+     *
+     * @param participantId participant id
+     */
+    public void invalidateSelfDescription(String participantId) {
+        sdCache.invalidate(participantId);
+    }
+
+    /**
+     * Remove all cached self-descriptions.
+     */
+    public void invalidateAll() {
+        sdCache.invalidateAll();
+    }
+
+    private record CachedSelfDescription(String sdHash, String content) {
+    }
+}
@@ -21,7 +21,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
-import eu.merloteducation.gxfscataloglibrary.models.client.SelfDescriptionStatus;
 import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
 import eu.merloteducation.gxfscataloglibrary.models.exception.CredentialPresentationException;
 import eu.merloteducation.gxfscataloglibrary.models.exception.CredentialSignatureException;
@@ -40,7 +39,9 @@ import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateDto;
 import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateRequest;
 import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
 import eu.merloteducation.organisationsorchestrator.mappers.ParticipantCredentialMapper;
+import eu.merloteducation.organisationsorchestrator.models.ParticipantDid;
 import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import eu.merloteducation.organisationsorchestrator.models.entities.ParticipantDirectoryEntry;
 import eu.merloteducation.organisationsorchestrator.models.exceptions.ParticipantConflictException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -57,7 +58,12 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
@@ -65,12 +71,28 @@ import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 @Slf4j
 public class ParticipantService {
 
+    /**
+     * Order of participants on catalog pages, case-insensitive by name, participants without name first.
+     */
+    public static final Comparator<MerlotParticipantDto> LEGAL_NAME_ORDER = Comparator.comparing(p -> {
+        GxLegalParticipantCredentialSubject legalParticipant = p.getSelfDescription()
+                .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class);
+        if (legalParticipant != null) {
+            return legalParticipant.getName().toLowerCase();
+        }
+        return "";
+    });
+
     private final OrganizationMapper organizationMapper;
     private final ParticipantCredentialMapper participantCredentialMapper;
     private final GxfsCatalogService gxfsCatalogService;
     private final OrganizationMetadataService organizationMetadataService;
     private final OutgoingMessageService outgoingMessageService;
     private final OmejdnConnectorApiClient omejdnConnectorApiClient;
+    private final SignerLegalNameService signerLegalNameService;
+    private final ParticipantSdCacheService participantSdCacheService;
+    private final ParticipantDirectoryService participantDirectoryService;
+    private final SelfDescriptionCleanupService selfDescriptionCleanupService;
     private final ObjectMapper objectMapper;
     private final Map<String, Set<OrganizationConnectorDto>> initialOrgaConnectors;
     private final String ocmAgentDid;
@@ -81,6 +103,10 @@ public class ParticipantService {
                               @Autowired OrganizationMetadataService organizationMetadataService,
                               @Autowired OutgoingMessageService outgoingMessageService,
                               @Autowired OmejdnConnectorApiClient omejdnConnectorApiClient,
+                              @Autowired SignerLegalNameService signerLegalNameService,
+                              @Autowired ParticipantSdCacheService participantSdCacheService,
+                              @Autowired ParticipantDirectoryService participantDirectoryService,
+                              @Autowired SelfDescriptionCleanupService selfDescriptionCleanupService,
                               @Autowired ObjectMapper objectMapper,
                               @Value("${init-data.connectors:#{null}}") File initialOrgaConnectorsResource,
                               @Value("${init-data.ocm-agent-did:#{null}}") String ocmAgentDid) {
@@ -90,6 +116,10 @@ public class ParticipantService {
         this.organizationMetadataService = organizationMetadataService;
         this.outgoingMessageService = outgoingMessageService;
         this.omejdnConnectorApiClient = omejdnConnectorApiClient;
+        this.signerLegalNameService = signerLegalNameService;
+        this.participantSdCacheService = participantSdCacheService;
+        this.participantDirectoryService = participantDirectoryService;
+        this.selfDescriptionCleanupService = selfDescriptionCleanupService;
         this.objectMapper = objectMapper;
         Map<String, Set<OrganizationConnectorDto>> foundInitialOrgaConnectors = Collections.emptyMap();
         if (initialOrgaConnectorsResource != null) {
@@ -111,21 +141,98 @@ public class ParticipantService {
      * @return organization data
      */
     public MerlotParticipantDto getParticipantById(String id) throws JsonProcessingException {
-        MerlotParticipantMetaDto metaDto = getParticipantMetaById(id);
-        ExtendedVerifiablePresentation selfDescription = getParticipantSdById(id);
+        return getParticipantById(id, true);
+    }
+
+    /**
+     * Given a participant ID, return the organization data from the GXFS catalog.
+     * Signer config and certificates are only decrypted and contained if requested.
+     *
+     * @param id participant id
+     * @param includeSecrets whether the metadata should contain signer config and certificates
+     * @return organization data
+     */
+    public MerlotParticipantDto getParticipantById(String id, boolean includeSecrets) throws JsonProcessingException {
+        // validate once for both lookups
+        ParticipantDid did = ParticipantDid.parse(id);
+        MerlotParticipantMetaDto metaDto = getParticipantMetaById(did, includeSecrets);
+        ExtendedVerifiablePresentation selfDescription = getParticipantSdById(did);
 
         return organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(selfDescription,
             metaDto);
     }
 
-    private MerlotParticipantMetaDto getParticipantMetaById(String id) {
-        String regex = "did:web:[-.A-Za-z0-9:%#]*";
-        if (!id.matches(regex)) {
-            throw new IllegalArgumentException("Provided id is invalid. It has to be a valid did:web.");
+    /**
+     * Given multiple participant IDs, return the organization data of all of them at once.
+     * Metadata is resolved in a single query and uncached self-descriptions with a single catalog call.
+     * Unlike {@link #getParticipantById(String)} the metadata does not contain the signer config.
+     *
+     * @param ids participant ids
+     * @return map of participant id to organization data, unknown and invalid ids are not contained
+     */
+    public Map<String, MerlotParticipantDto> getParticipantsByIds(Collection<String> ids)
+            throws JsonProcessingException {
+        Set<String> validIds = new HashSet<>();
+        for (String id : ids) {
+            if (ParticipantDid.isValid(id)) {
+                validIds.add(id);
+            } else {
+                log.debug("Ignoring invalid participant id {}", id);
+            }
         }
 
+        if (validIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, MerlotParticipantMetaDto> metadataMap =
+                organizationMetadataService.getMerlotParticipantMetaDtos(validIds);
+
+        // only use cached SDs that are still the current ones according to the directory
+        Map<String, String> sdHashes = participantDirectoryService.getSdHashes(metadataMap.keySet());
+        Map<String, ExtendedVerifiablePresentation> sdMap = new HashMap<>();
+        List<String> uncachedIds = new ArrayList<>();
+        for (String id : metadataMap.keySet()) {
+            ExtendedVerifiablePresentation cachedSd = participantSdCacheService.getSelfDescription(id, sdHashes.get(id));
+            if (cachedSd != null) {
+                sdMap.put(id, cachedSd);
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+
+        if (!uncachedIds.isEmpty()) {
+            try {
+                gxfsCatalogService.getSelfDescriptionsByIds(uncachedIds.toArray(String[]::new)).getItems()
+                        .forEach(item -> {
+                            ExtendedVerifiablePresentation selfDescription = item.getMeta().getContent();
+                            String id = selfDescription
+                                    .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class).getId();
+                            sdMap.put(id, selfDescription);
+                            participantSdCacheService.putSelfDescription(id,
+                                    sdHashes.getOrDefault(id, item.getMeta().getSdHash()), selfDescription);
+                        });
+            } catch (WebClientResponseException e) {
+                handleCatalogError(e);
+            }
+        }
+
+        Map<String, MerlotParticipantDto> participants = new HashMap<>();
+        sdMap.forEach((id, selfDescription) -> {
+            MerlotParticipantMetaDto metaDto = metadataMap.get(id);
+            if (metaDto != null) {
+                participants.put(id,
+                        organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(selfDescription, metaDto));
+            }
+        });
+        return participants;
+    }
+
+    private MerlotParticipantMetaDto getParticipantMetaById(ParticipantDid did, boolean includeSecrets) {
         // retrieve participant's meta information from db
-        MerlotParticipantMetaDto metaDto = organizationMetadataService.getMerlotParticipantMetaDto(id);
+        MerlotParticipantMetaDto metaDto = includeSecrets
+                ? organizationMetadataService.getMerlotParticipantMetaDto(did.getValue())
+                : organizationMetadataService.getMerlotParticipantMetaDtoWithoutSecrets(did.getValue());
 
         if (metaDto == null) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Participant could not be found.");
@@ -133,10 +240,14 @@ public class ParticipantService {
         return metaDto;
     }
 
-    private ExtendedVerifiablePresentation getParticipantSdById(String id) throws JsonProcessingException {
-        String regex = "did:web:[-.A-Za-z0-9:%#]*";
-        if (!id.matches(regex)) {
-            throw new IllegalArgumentException("Provided id is invalid. It has to be a valid did:web.");
+    private ExtendedVerifiablePresentation getParticipantSdById(ParticipantDid did) throws JsonProcessingException {
+        String id = did.getValue();
+
+        // only use the cached SD if it is still the current one according to the directory
+        String sdHash = participantDirectoryService.getSdHash(id);
+        ExtendedVerifiablePresentation cachedSd = participantSdCacheService.getSelfDescription(id, sdHash);
+        if (cachedSd != null) {
+            return cachedSd;
         }
 
         // get on the participants endpoint of the gxfs catalog at the specified id to get all enrolled participants
@@ -151,18 +262,39 @@ public class ParticipantService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No participant with this id was found.");
         }
 
+        participantSdCacheService.putSelfDescription(id, sdHash, response.getSelfDescription());
         return response.getSelfDescription();
     }
 
+    private String getSdHash(ExtendedVerifiablePresentation selfDescription) {
+        // the participant endpoints of the catalog do not return the hash of the stored self-description, so hash the
+        // returned self-description locally instead of asking the catalog again, it only needs to change with the content
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(selfDescription).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            log.warn("Failed to hash self-description: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Return all participants enrolled in the GXFS catalog (including participants that are also federators).
      *
      * @return page of organizations
      */
     public Page<MerlotParticipantDto> getParticipants(Pageable pageable, OrganizationRoleGrantedAuthority activeRole) throws JsonProcessingException {
+        boolean includeInactive = activeRole != null && activeRole.isFedAdmin();
+
+        // serve the list from the local directory once it has been reconciled with the catalog
+        if (participantDirectoryService.isReady()) {
+            return getParticipantsFromDirectory(pageable, includeInactive);
+        }
+
         GXFSCatalogListResponse<GXFSQueryUriItem> uriResponse = null;
 
-        if (activeRole != null && activeRole.isFedAdmin()) {
+        if (includeInactive) {
             uriResponse = getAllParticipantsUris(pageable);
         } else {
             uriResponse = getActiveParticipantsUris(pageable);
@@ -189,30 +321,31 @@ public class ParticipantService {
         // from the SDs create DTO objects. Also sort by name again since the catalog does not respect argument order
         List<MerlotParticipantDto> selfDescriptions = null;
         try {
-            selfDescriptions = sdResponse.getItems().stream()
-                .map(item -> {
-                    ExtendedVerifiablePresentation selfDescription = item.getMeta().getContent();
-                    String id = selfDescription
-                            .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class).getId();
-                    MerlotParticipantMetaDto metaDto = organizationMetadataService.getMerlotParticipantMetaDto(id);
+            Map<String, ExtendedVerifiablePresentation> sdMap = new HashMap<>();
+            sdResponse.getItems().forEach(item -> {
+                ExtendedVerifiablePresentation selfDescription = item.getMeta().getContent();
+                String id = selfDescription
+                        .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class).getId();
+                sdMap.put(id, selfDescription);
+                participantSdCacheService.putSelfDescriptionIfChanged(id, item.getMeta().getSdHash(), selfDescription);
+            });
+
+            // resolve the metadata of all participants on this page at once
+            Map<String, MerlotParticipantMetaDto> metadataMap =
+                    organizationMetadataService.getMerlotParticipantMetaDtos(sdMap.keySet());
+
+            selfDescriptions = sdMap.entrySet().stream()
+                .map(entry -> {
+                    MerlotParticipantMetaDto metaDto = metadataMap.get(entry.getKey());
 
                     if (metaDto == null) {
                         throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                            "Error while retrieving Participant with id: " + id);
+                            "Error while retrieving Participant with id: " + entry.getKey());
                     }
 
-                    return organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(selfDescription, metaDto);
+                    return organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(entry.getValue(), metaDto);
                 })
-                    .sorted(Comparator.comparing(
-                    p ->  {
-                        GxLegalParticipantCredentialSubject legalParticipant =
-                                p.getSelfDescription()
-                                        .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class);
-                        if (legalParticipant != null) {
-                            return legalParticipant.getName().toLowerCase();
-                        }
-                        return "";
-                    }))
+                    .sorted(LEGAL_NAME_ORDER)
                     .toList();
         } catch (WebClientResponseException e) {
             handleCatalogError(e);
@@ -221,6 +354,28 @@ public class ParticipantService {
         return new PageImpl<>(selfDescriptions, pageable, uriResponse.getTotalCount());
     }
 
+    private Page<MerlotParticipantDto> getParticipantsFromDirectory(Pageable pageable, boolean includeInactive)
+            throws JsonProcessingException {
+        Page<ParticipantDirectoryEntry> entries = participantDirectoryService.getEntries(pageable, includeInactive);
+
+        Map<String, MerlotParticipantMetaDto> metadataMap = organizationMetadataService.getMerlotParticipantMetaDtos(
+                entries.getContent().stream().map(ParticipantDirectoryEntry::getParticipantId).toList());
+
+        List<MerlotParticipantDto> participants = new ArrayList<>();
+        for (ParticipantDirectoryEntry entry : entries.getContent()) {
+            MerlotParticipantMetaDto metaDto = metadataMap.get(entry.getParticipantId());
+
+            if (metaDto == null) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error while retrieving Participant with id: " + entry.getParticipantId());
+            }
+
+            participants.add(organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(
+                    participantDirectoryService.getSelfDescription(entry), metaDto));
+        }
+        return new PageImpl<>(participants, pageable, entries.getTotalElements());
+    }
+
     private GXFSCatalogListResponse<GXFSQueryUriItem> getActiveParticipantsUris(Pageable pageable) throws JsonProcessingException {
         List<String> inactiveOrgasIds = organizationMetadataService.getInactiveParticipantsIds();
 
@@ -254,7 +409,7 @@ public class ParticipantService {
      * @return dto with set of whitelisted agent DIDs
      */
     public ParticipantAgentDidsDto getAgentDidsByParticipantId(String id) {
-        MerlotParticipantMetaDto metaDto = getParticipantMetaById(id);
+        MerlotParticipantMetaDto metaDto = getParticipantMetaById(ParticipantDid.parse(id), false);
         return organizationMapper.agentSettingsSetToDidDto(metaDto.getOcmAgentSettings());
     }
 
@@ -293,6 +448,7 @@ public class ParticipantService {
         MerlotParticipantMetaDto targetMetadata = participantDto.getMetadata();
 
         boolean initialOrgaActiveValue = targetMetadata.isActive();
+        String initialLegalName = targetMerlotLegalParticipantCs.getLegalName();
 
         ExtendedVerifiablePresentation editedVp = participantDtoWithEdits.getSelfDescription();
         GxLegalParticipantCredentialSubject editedLegalParticipantCs =
@@ -335,8 +491,7 @@ public class ParticipantService {
         OrganisationSignerConfigDto activeRoleSignerConfig =
                 (participantMetadata.getOrgaId().equals(activeRole.getOrganizationId()))
                         ? participantMetadata.getOrganisationSignerConfigDto()
-                        : organizationMetadataService.getMerlotParticipantMetaDto(activeRole.getOrganizationId())
-                        .getOrganisationSignerConfigDto();
+                        : getSignerConfigForUpdate(activeRole.getOrganizationId());
 
         if (!isSignerConfigValid(activeRoleSignerConfig)) {
             throw new ResponseStatusException(UNPROCESSABLE_ENTITY,
@@ -349,20 +504,30 @@ public class ParticipantService {
             participantItem = gxfsCatalogService.updateParticipant(List.of(targetLegalParticipantCs,
                             targetRegistrationNumberCs, targetMerlotLegalParticipantCs),
                 activeRoleSignerConfig.getMerlotVerificationMethod());
-
-            // clean up old SDs, remove these lines if you need the history of participant SDs
-            GXFSCatalogListResponse<SelfDescriptionItem> deprecatedParticipantSds =
-                    gxfsCatalogService.getSelfDescriptionsByIds(new String[]{participantItem.getId()},
-                    new SelfDescriptionStatus[]{SelfDescriptionStatus.DEPRECATED});
-            for (SelfDescriptionItem item : deprecatedParticipantSds.getItems()) {
-                gxfsCatalogService.deleteSelfDescriptionByHash(item.getMeta().getSdHash());
-            }
         } catch (HttpClientErrorException.NotFound e) {
+            participantSdCacheService.invalidateSelfDescription(participantMetadata.getOrgaId());
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No participant with this id was found in the catalog.");
         } catch (CredentialPresentationException | CredentialSignatureException e) {
             throw new ResponseStatusException(UNPROCESSABLE_ENTITY, e.getMessage());
         }
 
+        // clean up old SDs by the background sweeper, remove this line if you need the history of participant SDs.
+        // the catalog already deprecated the old SD, so record this right away and independently of this transaction
+        selfDescriptionCleanupService.requestCleanup(participantItem.getId());
+
+        String sdHash = getSdHash(participantItem.getSelfDescription());
+        // part of the ETag, so store it with the incremented metadata version instead of after the commit
+        organizationMetadataService.updateSelfDescriptionVersion(participantMetadata.getOrgaId(), sdHash,
+                SignerLegalNameService.getSignerId(participantItem.getSelfDescription()));
+        participantSdCacheService.putSelfDescription(participantItem.getId(), sdHash,
+                participantItem.getSelfDescription());
+        participantDirectoryService.updateEntry(participantItem.getSelfDescription(), sdHash, participantMetadata);
+
+        if (!Objects.equals(initialLegalName, targetMerlotLegalParticipantCs.getLegalName())) {
+            // the participant may be the signer of other self-descriptions, so drop its outdated legal name
+            signerLegalNameService.invalidateLegalName(participantMetadata.getOrgaId());
+        }
+
         if(!participantMetadata.isActive() && participantMetadata.isActive() != initialOrgaActiveValue) {
             outgoingMessageService.sendOrganizationMembershipRevokedMessage(participantMetadata.getOrgaId());
         }
@@ -421,11 +586,31 @@ public class ParticipantService {
     public MerlotParticipantDto createParticipant(RegistrationFormContent registrationFormContent,
                                                   OrganizationRoleGrantedAuthority activeRole)
             throws JsonProcessingException {
+        return createParticipant(registrationFormContent, activeRole, ParticipantCreationProgress.NONE);
+    }
+
+    /**
+     * Given the content of a registration form, attempt to create the self-description of the participant in the GXFS catalog.
+     * The DID and DAPS certificate are only requested if the given progress has none recorded, newly issued ones are
+     * passed to it as soon as they are received.
+     *
+     * @param registrationFormContent content of the registration form
+     * @param activeRole currently acting role
+     * @param progress results of a previous attempt to create this participant
+     * @return post response from catalog
+     * @throws JsonProcessingException failed to read catalog response
+     */
+    @Transactional(rollbackOn = { ResponseStatusException.class })
+    public MerlotParticipantDto createParticipant(RegistrationFormContent registrationFormContent,
+                                                  OrganizationRoleGrantedAuthority activeRole,
+                                                  ParticipantCreationProgress progress)
+            throws JsonProcessingException {
 
         MerlotParticipantMetaDto metaData;
         GxLegalParticipantCredentialSubject participantCs;
         GxLegalRegistrationNumberCredentialSubject registrationNumberCs;
         MerlotLegalParticipantCredentialSubject merlotParticipantCs;
+        OrganisationSignerConfigDto performingRoleSignerConfig;
         try {
             validateMandatoryFields(registrationFormContent);
             participantCs = participantCredentialMapper
@@ -434,26 +619,15 @@ public class ParticipantService {
                     .getLegalRegistrationNumberFromRegistrationForm(registrationFormContent);
             merlotParticipantCs = participantCredentialMapper
                     .getMerlotParticipantCsFromRegistrationForm(registrationFormContent);
-            metaData = organizationMapper.getOrganizationMetadataFromRegistrationForm(registrationFormContent);
 
-            // request did and private key
-            ParticipantDidPrivateKeyDto didPrivateKeyDto =
-                    outgoingMessageService.requestNewDidPrivateKey(
+            // request did and private key, the preparation below does not depend on it and overlaps with the request
+            ParticipantDidPrivateKeyDto issuedDid = progress.getIssuedDid();
+            CompletableFuture<ParticipantDidPrivateKeyDto> didPrivateKeyFuture = issuedDid != null
+                    ? CompletableFuture.completedFuture(issuedDid)
+                    : outgoingMessageService.requestNewDidPrivateKeyAsync(
                             new ParticipantDidPrivateKeyCreateRequest(merlotParticipantCs.getLegalName()));
 
-           // update metadata signer config
-            metaData.setOrganisationSignerConfigDto(
-                    organizationMapper.getSignerConfigDtoFromDidPrivateKeyDto(didPrivateKeyDto));
-
-            // update orga id with received did
-            metaData.setOrgaId(didPrivateKeyDto.getDid());
-
-            // request a new DAPS certificate for organization and store it
-            OmejdnConnectorCertificateDto omejdnCertificate
-                    = omejdnConnectorApiClient.addConnector(
-                    new OmejdnConnectorCertificateRequest(metaData.getOrgaId()));
-            metaData.setDapsCertificates(
-                    List.of(organizationMapper.omejdnCertificateToDapsCertificateDto(omejdnCertificate)));
+            metaData = organizationMapper.getOrganizationMetadataFromRegistrationForm(registrationFormContent);
 
             // if initial connectors are defined, add them to the participant
             Set<OrganizationConnectorDto> connectors = initialOrgaConnectors.getOrDefault(merlotParticipantCs.getLegalName(),
@@ -466,6 +640,30 @@ public class ParticipantService {
             agentSettingsDto.setAgentDid(ocmAgentDid);
             metaData.setOcmAgentSettings(Set.of(agentSettingsDto));
 
+            performingRoleSignerConfig = getSignerConfig(activeRole.getOrganizationId());
+
+            ParticipantDidPrivateKeyDto didPrivateKeyDto = awaitDidPrivateKey(didPrivateKeyFuture);
+            if (issuedDid == null) {
+                progress.didIssued(didPrivateKeyDto);
+            }
+
+            // update metadata signer config
+            metaData.setOrganisationSignerConfigDto(
+                    organizationMapper.getSignerConfigDtoFromDidPrivateKeyDto(didPrivateKeyDto));
+
+            // update orga id with received did
+            metaData.setOrgaId(didPrivateKeyDto.getDid());
+
+            // request a new DAPS certificate for organization and store it
+            OmejdnConnectorCertificateDto omejdnCertificate = progress.getIssuedDapsCertificate();
+            if (omejdnCertificate == null) {
+                omejdnCertificate = omejdnConnectorApiClient.addConnector(
+                        new OmejdnConnectorCertificateRequest(metaData.getOrgaId()));
+                progress.dapsCertificateIssued(omejdnCertificate);
+            }
+            metaData.setDapsCertificates(
+                    List.of(organizationMapper.omejdnCertificateToDapsCertificateDto(omejdnCertificate)));
+
         } catch (NullPointerException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid registration form file.");
         }
@@ -489,12 +687,11 @@ public class ParticipantService {
         participantCs.setLegalRegistrationNumber(
                 List.of(new NodeKindIRITypeId(registrationNumberId)));
 
-        // fetch the corresponding signer config for the performing role
+        // use the corresponding signer config for the performing role
         OrganisationSignerConfigDto activeRoleSignerConfig =
                 (metaDataDto.getOrgaId().equals(activeRole.getOrganizationId()))
                         ? metaDataDto.getOrganisationSignerConfigDto()
-                        : organizationMetadataService.getMerlotParticipantMetaDto(activeRole.getOrganizationId())
-                        .getOrganisationSignerConfigDto();
+                        : performingRoleSignerConfig;
 
         if (!isSignerConfigValid(activeRoleSignerConfig)) {
             throw new ResponseStatusException(UNPROCESSABLE_ENTITY,
@@ -517,6 +714,13 @@ public class ParticipantService {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create participant");
         }
 
+        String sdHash = getSdHash(participantItem.getSelfDescription());
+        organizationMetadataService.updateSelfDescriptionVersion(metaDataDto.getOrgaId(), sdHash,
+                SignerLegalNameService.getSignerId(participantItem.getSelfDescription()));
+        participantSdCacheService.putSelfDescription(participantItem.getId(), sdHash,
+                participantItem.getSelfDescription());
+        participantDirectoryService.updateEntry(participantItem.getSelfDescription(), sdHash, metaDataDto);
+
         return organizationMapper.selfDescriptionAndMetadataToMerlotParticipantDto(participantItem.getSelfDescription(),
                 metaDataDto);
     }
@@ -562,6 +766,28 @@ public class ParticipantService {
         }
     }
 
+    private ParticipantDidPrivateKeyDto awaitDidPrivateKey(CompletableFuture<ParticipantDidPrivateKeyDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            log.warn("Failed to request a new DID and private key: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Participant could not be created.");
+        }
+    }
+
+    private OrganisationSignerConfigDto getSignerConfigForUpdate(String orgaId) {
+        try {
+            return getSignerConfig(orgaId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load the signer config of the executing participant: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Participant could not be updated.");
+        }
+    }
+
+    private OrganisationSignerConfigDto getSignerConfig(String orgaId) {
+        return organizationMetadataService.getSignerConfigDto(orgaId);
+    }
+
     private boolean isSignerConfigValid(OrganisationSignerConfigDto signerConfig) {
         if (signerConfig == null) {
             return false;
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapper;
+import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+@Service
+public class RegistrationFormService {
+
+    private final PdfContentMapper pdfContentMapper;
+
+    // registration forms and the streams parsed from them are moved to temp files beyond this size
+    private final long maxMainMemoryBytes;
+
+    public RegistrationFormService(@Autowired PdfContentMapper pdfContentMapper,
+                                   @Value("${registration-form.max-main-memory:512KB}") DataSize maxMainMemory) {
+        this.pdfContentMapper = pdfContentMapper;
+        this.maxMainMemoryBytes = maxMainMemory.toBytes();
+    }
+
+    /**
+     * Given an uploaded registration form, return the content of its form fields.
+     * Only the form fields are read, the pages of the document are neither parsed nor rendered.
+     *
+     * @param registrationForm registration form PDF
+     * @return content of the registration form
+     * @throws IOException the file could not be read or is not a PDF
+     */
+    public RegistrationFormContent readRegistrationForm(MultipartFile registrationForm) throws IOException {
+        if (registrationForm.getSize() <= maxMainMemoryBytes) {
+            try (InputStream input = registrationForm.getInputStream()) {
+                return readRegistrationForm(new RandomAccessReadBuffer(input));
+            }
+        }
+
+        File tempFile = Files.createTempFile("registration-form-", ".pdf").toFile();
+        try {
+            registrationForm.transferTo(tempFile);
+            return readRegistrationForm(new RandomAccessReadBufferedFile(tempFile));
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private RegistrationFormContent readRegistrationForm(RandomAccessRead source) throws IOException {
+        try (PDDocument pdDoc = Loader.loadPDF(source, "", null, null,
+                MemoryUsageSetting.setupMixed(maxMainMemoryBytes).streamCache)) {
+            // skip the default fixups as they walk all pages and build appearance streams for every field
+            PDAcroForm pdAcroForm = pdDoc.getDocumentCatalog().getAcroForm(null);
+            return pdfContentMapper.getRegistrationFormContentFromRegistrationForm(pdAcroForm);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import eu.merloteducation.gxfscataloglibrary.models.client.SelfDescriptionStatus;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import eu.merloteducation.organisationsorchestrator.config.AsyncConfig;
+import eu.merloteducation.organisationsorchestrator.models.entities.DeprecatedSelfDescription;
+import eu.merloteducation.organisationsorchestrator.models.entities.SelfDescriptionCleanupRequest;
+import eu.merloteducation.organisationsorchestrator.repositories.DeprecatedSelfDescriptionRepository;
+import eu.merloteducation.organisationsorchestrator.repositories.SelfDescriptionCleanupRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class SelfDescriptionCleanupService {
+
+    private final GxfsCatalogService gxfsCatalogService;
+    private final SelfDescriptionCleanupRequestRepository cleanupRequestRepository;
+    private final DeprecatedSelfDescriptionRepository deprecatedSdRepository;
+    private final Executor catalogTaskExecutor;
+    private final TransactionTemplate newTransactionTemplate;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int maxAttempts;
+    private final int batchSize;
+    private final int concurrency;
+    private final Duration claimDuration;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private final Counter deletionCounter;
+    private final Counter failureCounter;
+
+    public SelfDescriptionCleanupService(@Autowired GxfsCatalogService gxfsCatalogService,
+                                         @Autowired SelfDescriptionCleanupRequestRepository cleanupRequestRepository,
+                                         @Autowired DeprecatedSelfDescriptionRepository deprecatedSdRepository,
+                                         @Autowired @Qualifier(AsyncConfig.CATALOG_TASK_EXECUTOR) Executor catalogTaskExecutor,
+                                         @Autowired MeterRegistry meterRegistry,
+                                         @Autowired PlatformTransactionManager transactionManager,
+                                         @Value("${sd-cleanup.max-attempts:5}") int maxAttempts,
+                                         @Value("${sd-cleanup.batch-size:100}") int batchSize,
+                                         @Value("${sd-cleanup.concurrency:4}") int concurrency,
+                                         @Value("${sd-cleanup.claim-duration:PT5M}") Duration claimDuration,
+                                         @Value("${sd-cleanup.deletions-per-second:10}") double deletionsPerSecond) {
+        this.gxfsCatalogService = gxfsCatalogService;
+        this.cleanupRequestRepository = cleanupRequestRepository;
+        this.deprecatedSdRepository = deprecatedSdRepository;
+        this.catalogTaskExecutor = catalogTaskExecutor;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rateLimiter = new TokenBucketRateLimiter(Math.max(1, (long) deletionsPerSecond), deletionsPerSecond);
+        this.maxAttempts = maxAttempts;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.claimDuration = claimDuration;
+        Gauge.builder("sd.cleanup.backlog", backlog, AtomicLong::get)
+                .description("Participants and deprecated self-descriptions waiting for cleanup")
+                .register(meterRegistry);
+        Gauge.builder("sd.cleanup.dead.letters", deadLetters, AtomicLong::get)
+                .description("Deprecated self-descriptions that are no longer retried after too many failed deletions")
+                .register(meterRegistry);
+        this.deletionCounter = Counter.builder("sd.cleanup.deletions")
+                .description("Deprecated self-descriptions deleted from the catalog")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("sd.cleanup.failures")
+                .description("Failed attempts to delete deprecated self-descriptions from the catalog")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Given a participant ID, durably record that the deprecated self-descriptions of this participant
+     * should be removed from the catalog by the next sweep.
+     * The request is committed on its own, so it is kept even if the calling transaction is rolled back after the
+     * self-description was already replaced in the catalog.
+     *
+     * @param participantId participant id
+     */
+    public void requestCleanup(String participantId) {
+        newTransactionTemplate.executeWithoutResult(status -> cleanupRequestRepository.save(
+                new SelfDescriptionCleanupRequest(participantId, Instant.now(), null)));
+    }
+
+    /**
+     * Periodically collect the deprecated self-descriptions of all participants with pending cleanup requests
+     * and delete them from the catalog. Each instance only processes the rows it claimed, so sweeps of multiple
+     * instances do not overlap.
+     */
+    @Scheduled(cron = "${sd-cleanup.sweep-cron:*/30 * * * * *}")
+    public void sweep() {
+        try {
+            collectDeprecatedSelfDescriptions();
+            deleteDeprecatedSelfDescriptions();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to clean up deprecated self-descriptions: {}", e.getMessage());
+        } finally {
+            backlog.set(cleanupRequestRepository.count() + deprecatedSdRepository.countByAttemptsLessThan(maxAttempts));
+            deadLetters.set(deprecatedSdRepository.countByAttemptsGreaterThanEqual(maxAttempts));
+        }
+    }
+
+    private void collectDeprecatedSelfDescriptions() {
+        List<SelfDescriptionCleanupRequest> cleanupRequests =
+                cleanupRequestRepository.claimBatch(Instant.now().plus(claimDuration), PageRequest.of(0, batchSize));
+        if (cleanupRequests.isEmpty()) {
+            return;
+        }
+
+        // find the deprecated self-descriptions of all requested participants with a single query
+        List<SelfDescriptionItem> deprecatedSdItems = gxfsCatalogService.getSelfDescriptionsByIds(
+                cleanupRequests.stream().map(SelfDescriptionCleanupRequest::getParticipantId).toArray(String[]::new),
+                new SelfDescriptionStatus[]{SelfDescriptionStatus.DEPRECATED}).getItems();
+
+        Set<String> trackedSdHashes = deprecatedSdRepository.findAllById(
+                deprecatedSdItems.stream().map(item -> item.getMeta().getSdHash()).toList())
+                .stream().map(DeprecatedSelfDescription::getSdHash).collect(Collectors.toSet());
+        Instant now = Instant.now();
+        deprecatedSdRepository.saveAll(deprecatedSdItems.stream()
+                .filter(item -> !trackedSdHashes.contains(item.getMeta().getSdHash()))
+                .map(item -> new DeprecatedSelfDescription(item.getMeta().getSdHash(), item.getMeta().getSubjectId(),
+                        now, 0, null))
+                .toList());
+
+        // requests renewed in the meantime may refer to newer deprecated self-descriptions and are kept
+        for (SelfDescriptionCleanupRequest cleanupRequest : cleanupRequests) {
+            cleanupRequestRepository.deleteByParticipantIdAndRequestedAt(cleanupRequest.getParticipantId(),
+                    cleanupRequest.getRequestedAt());
+        }
+    }
+
+    private void deleteDeprecatedSelfDescriptions() throws InterruptedException {
+        List<DeprecatedSelfDescription> deprecatedSds = deprecatedSdRepository
+                .claimBatch(maxAttempts, Instant.now().plus(claimDuration), PageRequest.of(0, batchSize));
+
+        Semaphore inFlightDeletions = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> deletions = new ArrayList<>();
+        for (DeprecatedSelfDescription deprecatedSd : deprecatedSds) {
+            inFlightDeletions.acquire();
+            rateLimiter.acquire();
+            try {
+                deletions.add(CompletableFuture.runAsync(() -> deleteDeprecatedSelfDescription(deprecatedSd),
+                                catalogTaskExecutor)
+                        .whenComplete((result, e) -> inFlightDeletions.release()));
+            } catch (RuntimeException e) {
+                inFlightDeletions.release();
+                throw e;
+            }
+        }
+        CompletableFuture.allOf(deletions.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void deleteDeprecatedSelfDescription(DeprecatedSelfDescription deprecatedSd) {
+        try {
+            gxfsCatalogService.deleteSelfDescriptionByHash(deprecatedSd.getSdHash());
+            deletionCounter.increment();
+        } catch (WebClientResponseException.NotFound e) {
+            // already removed from the catalog
+        } catch (Exception e) {
+            failureCounter.increment();
+            deprecatedSd.setAttempts(deprecatedSd.getAttempts() + 1);
+            // release the claim, so the next sweep of any instance retries the deletion
+            deprecatedSd.setClaimedUntil(null);
+            deprecatedSdRepository.save(deprecatedSd);
+            log.warn("Attempt {} to delete deprecated self-description {} of participant {} failed: {}",
+                    deprecatedSd.getAttempts(), deprecatedSd.getSdHash(), deprecatedSd.getParticipantId(),
+                    e.getMessage());
+            if (deprecatedSd.getAttempts() >= maxAttempts) {
+                log.error("Giving up on deleting deprecated self-description {} of participant {}, " +
+                        "it has to be removed from the catalog manually", deprecatedSd.getSdHash(),
+                        deprecatedSd.getParticipantId());
+            }
+            return;
+        }
+        deprecatedSdRepository.delete(deprecatedSd);
+    }
+}
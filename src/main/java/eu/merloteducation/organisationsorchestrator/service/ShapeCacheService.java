@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import eu.merloteducation.gxfscataloglibrary.service.GxdchService;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsWizardApiService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+@Service
+public class ShapeCacheService {
+
+    private static final String CACHE_NAME = "shapes";
+
+    private static final String GX_TNC_KEY = "gx/tnc";
+
+    /**
+     * Cached document together with its validators for conditional requests.
+     *
+     * @param content content of the document
+     * @param etag hash of the content
+     * @param lastModified time at which the content was first seen
+     */
+    public record ShapeDocument(String content, String etag, Instant lastModified) {
+    }
+
+    private final GxfsWizardApiService gxfsWizardApiService;
+
+    private final GxdchService gxdchService;
+
+    private final ObjectMapper objectMapper;
+
+    // entries are refreshed in the background after the refresh interval while the old one is still served
+    private final LoadingCache<String, ShapeDocument> shapeCache;
+
+    public ShapeCacheService(@Autowired GxfsWizardApiService gxfsWizardApiService,
+                             @Autowired GxdchService gxdchService,
+                             @Autowired ObjectMapper objectMapper,
+                             @Autowired MeterRegistry meterRegistry,
+                             @Value("${cache.shapes.refresh:PT10M}") Duration refresh,
+                             @Value("${cache.shapes.ttl:PT24H}") Duration ttl) {
+        this.gxfsWizardApiService = gxfsWizardApiService;
+        this.gxdchService = gxdchService;
+        this.objectMapper = objectMapper;
+        this.shapeCache = Caffeine.newBuilder()
+                .refreshAfterWrite(refresh)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ShapeDocument load(String key) {
+                        return toShapeDocument(fetchContent(key));
+                    }
+
+                    @Override
+                    public ShapeDocument reload(String key, ShapeDocument oldValue) {
+                        String content = fetchContent(key);
+                        // keep the validators of unchanged documents so that clients keep getting 304 responses
+                        return oldValue.content().equals(content) ? oldValue : toShapeDocument(content);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, shapeCache, CACHE_NAME);
+    }
+
+    /**
+     * Given an ecosystem and the name of a shape, return the cached shape from the wizard api.
+     *
+     * @param ecosystem ecosystem of the shape
+     * @param name file name of the shape
+     * @return shape or null if the wizard api did not return it
+     */
+    public ShapeDocument getShape(String ecosystem, String name) {
+        return shapeCache.get(ecosystem + "/" + name);
+    }
+
+    /**
+     * Return the cached Gaia-X terms and conditions.
+     *
+     * @return terms and conditions or null if the clearing house did not return them
+     */
+    public ShapeDocument getGxTermsAndConditions() {
+        return shapeCache.get(GX_TNC_KEY);
+    }
+
+    /**
+     * Remove all cached documents.
+     */
+    public void invalidateAll() {
+        shapeCache.invalidateAll();
+    }
+
+    private String fetchContent(String key) {
+        if (key.equals(GX_TNC_KEY)) {
+            return serializeGxTermsAndConditions(gxdchService.getGxTnCs());
+        }
+        int separator = key.indexOf('/');
+        return gxfsWizardApiService.getShapeByName(key.substring(0, separator), key.substring(separator + 1));
+    }
+
+    private String serializeGxTermsAndConditions(JsonNode gxTnCs) {
+        if (gxTnCs == null) {
+            // missing terms and conditions are not cached, so they are requested again on the next call
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(gxTnCs);
+        } catch (JsonProcessingException e) {
+            // checked exceptions of the loader would reach the caller wrapped in a CompletionException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ShapeDocument toShapeDocument(String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return new ShapeDocument(content, HexFormat.of().formatHex(hash), Instant.now());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
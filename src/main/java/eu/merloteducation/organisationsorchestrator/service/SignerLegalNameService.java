@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryLegalNameItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.gx.participants.GxLegalParticipantCredentialSubject;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.merlot.participants.MerlotLegalParticipantCredentialSubject;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class SignerLegalNameService {
+
+    private static final String CACHE_NAME = "signerLegalNames";
+
+    private final GxfsCatalogService gxfsCatalogService;
+
+    private final Cache<String, String> legalNameCache;
+
+    public SignerLegalNameService(@Autowired GxfsCatalogService gxfsCatalogService,
+                                  @Autowired MeterRegistry meterRegistry,
+                                  @Value("${cache.signer-legal-names.ttl:PT10M}") Duration ttl,
+                                  @Value("${cache.signer-legal-names.max-size:1000}") long maxSize) {
+        this.gxfsCatalogService = gxfsCatalogService;
+        this.legalNameCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, legalNameCache, CACHE_NAME);
+    }
+
+    /**
+     * Given the DID of a signer, return the legal name of the corresponding participant.
+     * Resolved names are cached, names that could not be resolved are asked for again on the next call.
+     *
+     * @param signerId DID of the signer
+     * @return legal name of the signer or null if it could not be resolved
+     */
+    public String getLegalNameForSigner(String signerId) {
+        return legalNameCache.get(signerId, this::queryLegalNameFromCatalog);
+    }
+
+    /**
+     * Given the DIDs of multiple signers, e.g. of all participants on a page, return their legal names.
+     * Only signers that are not cached yet are resolved, all of them with a single catalog request.
+     *
+     * @param signerIds DIDs of the signers, may contain duplicates
+     * @return map of signer DID to legal name, signers that could not be resolved are not contained
+     */
+    public Map<String, String> getLegalNamesForSigners(Collection<String> signerIds) {
+        return legalNameCache.getAll(signerIds, this::queryLegalNamesFromCatalog);
+    }
+
+    /**
+     * Given a self-description, return the DID of its signer taken from the verification method of its proof.
+     *
+     * @param selfDescription self-description
+     * @return DID of the signer or null if the self-description has no proof
+     */
+    public static String getSignerId(ExtendedVerifiablePresentation selfDescription) {
+        try {
+            String proofVerificationMethod = selfDescription.getLdProof().getVerificationMethod().toString();
+            return proofVerificationMethod.replaceFirst("#.*", "");
+        } catch (Exception ignored) {
+            // if something fails, the signer is not resolvable
+            return null;
+        }
+    }
+
+    /**
+     * Remove the cached legal name of the given participant, e.g. after its legal name was changed.
+     *
+     * @param participantId DID of the participant
+     */
+    public void invalidateLegalName(String participantId) {
+        legalNameCache.invalidate(participantId);
+    }
+
+    private Map<String, String> queryLegalNamesFromCatalog(Set<? extends String> signerIds) {
+        // the legal name query of the catalog library only accepts a single uri, so read the legal names from the
+        // self-descriptions of all missing signers instead, which the catalog returns for many ids at once
+        Map<String, String> legalNames = new HashMap<>();
+        try {
+            GXFSCatalogListResponse<SelfDescriptionItem> response =
+                    gxfsCatalogService.getSelfDescriptionsByIds(signerIds.toArray(String[]::new));
+            for (SelfDescriptionItem item : response.getItems()) {
+                ExtendedVerifiablePresentation selfDescription = item.getMeta().getContent();
+                GxLegalParticipantCredentialSubject legalParticipantCs =
+                        selfDescription.findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class);
+                MerlotLegalParticipantCredentialSubject merlotLegalParticipantCs =
+                        selfDescription.findFirstCredentialSubjectByType(MerlotLegalParticipantCredentialSubject.class);
+                // only merlot participants have a legal name, other signers are not resolvable
+                if (legalParticipantCs != null && merlotLegalParticipantCs != null
+                        && merlotLegalParticipantCs.getLegalName() != null
+                        && signerIds.contains(legalParticipantCs.getId())) {
+                    legalNames.put(legalParticipantCs.getId(), merlotLegalParticipantCs.getLegalName());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Failed to resolve legal names of {} signers: {}", signerIds.size(), e.getMessage());
+        }
+        return legalNames;
+    }
+
+    private String queryLegalNameFromCatalog(String signerId) {
+        try {
+            GXFSCatalogListResponse<GXFSQueryLegalNameItem> response = gxfsCatalogService
+                    .getParticipantLegalNameByUri(MerlotLegalParticipantCredentialSubject.TYPE_CLASS, signerId);
+
+            // if we do not get exactly one item, we did not find the signer participant and the corresponding legal name
+            if (response.getTotalCount() == 1) {
+                return response.getItems().get(0).getLegalName();
+            }
+        } catch (Exception e) {
+            log.debug("Failed to resolve legal name of signer {}: {}", signerId, e.getMessage());
+        }
+        return null;
+    }
+}
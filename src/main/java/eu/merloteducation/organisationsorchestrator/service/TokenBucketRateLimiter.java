@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe token bucket that allows bursts up to its capacity and refills at a fixed rate.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long capacity;
+    private final double refillTokensPerNano;
+    private double availableTokens;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(long capacity, double refillTokensPerSecond) {
+        if (capacity < 1 || refillTokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacity and refill rate of the rate limiter have to be positive.");
+        }
+        this.capacity = capacity;
+        this.refillTokensPerNano = refillTokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.availableTokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Take a token if one is available.
+     *
+     * @return true if a token was taken
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (availableTokens >= 1) {
+            availableTokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take a token, waiting until one becomes available.
+     *
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (availableTokens >= 1) {
+                    availableTokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - availableTokens) / refillTokensPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        availableTokens = Math.min(capacity, availableTokens + (now - lastRefillNanos) * refillTokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.organisationsorchestrator.models.AESGCM;
+import org.bouncycastle.crypto.CryptoException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AESGCMTests {
+
+    private final SecretKey key = new SecretKeySpec("1234123412341234".getBytes(), AESGCM.ALGORITHM);
+
+    @Test
+    void encryptDecryptRoundTrip() throws CryptoException {
+        String cipherText = AESGCM.encrypt("privateKey", key);
+
+        assertNotEquals("privateKey", cipherText);
+        assertEquals("privateKey", AESGCM.decrypt(cipherText, key));
+    }
+
+    @Test
+    void encryptUsesFreshIv() throws CryptoException {
+        assertNotEquals(AESGCM.encrypt("password", key), AESGCM.encrypt("password", key));
+    }
+
+    @Test
+    void decryptTamperedCipherTextFails() throws CryptoException {
+        byte[] cipherBytes = Base64.getDecoder().decode(AESGCM.encrypt("password", key));
+        cipherBytes[cipherBytes.length - 1] ^= 1;
+        String tamperedCipherText = Base64.getEncoder().encodeToString(cipherBytes);
+
+        assertThrows(CryptoException.class, () -> AESGCM.decrypt(tamperedCipherText, key));
+
+        // the cipher of this thread is still usable afterwards
+        assertEquals("password", AESGCM.decrypt(AESGCM.encrypt("password", key), key));
+    }
+
+    @Test
+    void encryptDecryptConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String plainText = "secret" + i;
+                results.add(executor.submit(() -> AESGCM.decrypt(AESGCM.encrypt(plainText, key), key)));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals("secret" + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
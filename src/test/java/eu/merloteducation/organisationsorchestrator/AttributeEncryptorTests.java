@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.organisationsorchestrator.models.AttributeEncryptor;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeEncryptorTests {
+
+    private final AttributeEncryptor attributeEncryptor = new AttributeEncryptor("1234123412341234");
+
+    @Test
+    void loadedValueIsDecryptedOnRead() {
+        String cipherText = attributeEncryptor.convertToDatabaseColumn(EncryptedString.fromPlainText("privateKey"));
+
+        EncryptedString loaded = attributeEncryptor.convertToEntityAttribute(cipherText);
+
+        assertFalse(loaded.isPlainTextAvailable());
+        assertEquals("privateKey", loaded.getPlainText());
+        assertTrue(loaded.isPlainTextAvailable());
+    }
+
+    @Test
+    void loadedValueIsNotEncryptedAgain() {
+        String cipherText = attributeEncryptor.convertToDatabaseColumn(EncryptedString.fromPlainText("privateKey"));
+
+        EncryptedString loaded = attributeEncryptor.convertToEntityAttribute(cipherText);
+
+        assertEquals(cipherText, attributeEncryptor.convertToDatabaseColumn(loaded));
+        assertFalse(loaded.isPlainTextAvailable());
+    }
+
+    @Test
+    void valueFromOtherKeyIsEncryptedAgain() {
+        AttributeEncryptor otherEncryptor = new AttributeEncryptor("4321432143214321");
+        String cipherText = otherEncryptor.convertToDatabaseColumn(EncryptedString.fromPlainText("privateKey"));
+
+        EncryptedString loaded = otherEncryptor.convertToEntityAttribute(cipherText);
+        String reEncrypted = attributeEncryptor.convertToDatabaseColumn(loaded);
+
+        assertNotEquals(cipherText, reEncrypted);
+        assertEquals("privateKey", attributeEncryptor.convertToEntityAttribute(reEncrypted).getPlainText());
+    }
+
+    @Test
+    void loadedValuesAreEqualByCipherText() {
+        String cipherText = attributeEncryptor.convertToDatabaseColumn(EncryptedString.fromPlainText("privateKey"));
+        String otherCipherText = attributeEncryptor.convertToDatabaseColumn(EncryptedString.fromPlainText("privateKey"));
+
+        EncryptedString loaded = attributeEncryptor.convertToEntityAttribute(cipherText);
+
+        assertEquals(loaded, attributeEncryptor.convertToEntityAttribute(cipherText));
+        assertEquals(loaded.hashCode(), attributeEncryptor.convertToEntityAttribute(cipherText).hashCode());
+        assertNotEquals(loaded, attributeEncryptor.convertToEntityAttribute(otherCipherText));
+        assertNotEquals(EncryptedString.fromPlainText("privateKey"), EncryptedString.fromPlainText("privateKey"));
+    }
+
+    @Test
+    void secretIsNotExposedInToString() {
+        assertFalse(EncryptedString.fromPlainText("privateKey").toString().contains("privateKey"));
+    }
+
+    @Test
+    void nullValuesArePassedThrough() {
+        assertNull(attributeEncryptor.convertToDatabaseColumn(null));
+        assertNull(attributeEncryptor.convertToEntityAttribute(null));
+    }
+}
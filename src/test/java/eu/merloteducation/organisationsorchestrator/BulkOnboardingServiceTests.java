@@ -0,0 +1,207 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRole;
+import eu.merloteducation.authorizationlibrary.authorization.OrganizationRoleGrantedAuthority;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
+import eu.merloteducation.organisationsorchestrator.models.BulkRegistrationResult;
+import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import eu.merloteducation.organisationsorchestrator.service.BulkOnboardingService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkOnboardingServiceTests {
+
+    private static final OrganizationRoleGrantedAuthority FED_ADMIN_ROLE =
+            new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:someorga.example.com");
+
+    @Mock
+    private RegistrationFormService registrationFormService;
+
+    @Mock
+    private ParticipantService participantService;
+
+    private BulkOnboardingService bulkOnboardingService;
+
+    @BeforeEach
+    void setUp() {
+        bulkOnboardingService = new BulkOnboardingService(registrationFormService, participantService,
+                new SyncTaskExecutor(), 3, DataSize.ofKilobytes(1), 1, 5);
+    }
+
+    private MockMultipartFile getPdf(String fileName) {
+        return new MockMultipartFile("file", fileName, MediaType.APPLICATION_PDF_VALUE, fileName.getBytes());
+    }
+
+    private MockMultipartFile getZip(String... entryNames) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (String entryName : entryNames) {
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(entryName.getBytes());
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("file", "forms.zip", "application/zip", output.toByteArray());
+    }
+
+    @Test
+    void getRegistrationFormsFromPdfsAndZip() throws IOException {
+        List<MultipartFile> forms = bulkOnboardingService.getRegistrationForms(new MultipartFile[]{
+                getPdf("first.pdf"), getZip("cohort/second.pdf", "cohort/", "cohort/readme.txt")});
+
+        assertEquals(List.of("first.pdf", "second.pdf"),
+                forms.stream().map(MultipartFile::getOriginalFilename).toList());
+        assertEquals(MediaType.APPLICATION_PDF_VALUE, forms.get(1).getContentType());
+        assertArrayEquals("cohort/second.pdf".getBytes(), forms.get(1).getBytes());
+    }
+
+    @Test
+    void spooledRegistrationFormsAreRemovedAfterOnboarding() throws Exception {
+        List<MultipartFile> forms = bulkOnboardingService.getRegistrationForms(new MultipartFile[]{getZip("first.pdf")});
+        when(registrationFormService.readRegistrationForm(any())).thenThrow(new IOException("not a PDF"));
+
+        bulkOnboardingService.onboardOrganizations(forms, FED_ADMIN_ROLE, result -> {}).join();
+
+        assertThrows(IOException.class, () -> forms.get(0).getBytes());
+    }
+
+    @Test
+    void getRegistrationFormsTooMany() throws IOException {
+        MultipartFile[] files = {getPdf("first.pdf"), getZip("second.pdf", "third.pdf", "fourth.pdf")};
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> bulkOnboardingService.getRegistrationForms(files));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void getRegistrationFormsZipEntryTooLarge() throws IOException {
+        MultipartFile[] files = {getZip("x".repeat(2048) + ".pdf")};
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> bulkOnboardingService.getRegistrationForms(files));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void getRegistrationFormsNone() throws IOException {
+        MultipartFile[] files = {getZip("readme.txt")};
+
+        assertThrows(ResponseStatusException.class, () -> bulkOnboardingService.getRegistrationForms(files));
+    }
+
+    @Test
+    void onboardOrganizationsReportsEachForm() throws Exception {
+        MerlotParticipantDto participant = new MerlotParticipantDto();
+        participant.setId("did:web:example.com:participant:first");
+        RegistrationFormContent content = new RegistrationFormContent();
+        MockMultipartFile firstForm = getPdf("first.pdf");
+        MockMultipartFile secondForm = getPdf("second.pdf");
+        MockMultipartFile thirdForm = getPdf("third.pdf");
+        when(registrationFormService.readRegistrationForm(firstForm)).thenReturn(content);
+        when(registrationFormService.readRegistrationForm(secondForm)).thenThrow(new IOException("not a PDF"));
+        when(registrationFormService.readRegistrationForm(thirdForm)).thenReturn(new RegistrationFormContent());
+        when(participantService.createParticipant(any(), any()))
+                .thenReturn(participant)
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Organization already exists"));
+
+        List<BulkRegistrationResult> results = new ArrayList<>();
+        bulkOnboardingService.onboardOrganizations(List.of(firstForm, secondForm, thirdForm), FED_ADMIN_ROLE,
+                results::add).join();
+
+        assertEquals(3, results.size());
+        assertEquals(BulkRegistrationResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(participant.getId(), results.get(0).getParticipantId());
+        assertEquals(BulkRegistrationResult.Status.FAILED, results.get(1).getStatus());
+        // the exception message is not passed on to the client
+        assertEquals("Invalid registration form file.", results.get(1).getMessage());
+        assertEquals(BulkRegistrationResult.Status.FAILED, results.get(2).getStatus());
+        assertEquals("Organization already exists", results.get(2).getMessage());
+        verify(participantService, times(2)).createParticipant(any(), eq(FED_ADMIN_ROLE));
+    }
+
+    @Test
+    void onboardOrganizationsPoolExhausted() {
+        bulkOnboardingService = new BulkOnboardingService(registrationFormService, participantService,
+                task -> {
+                    throw new TaskRejectedException("queue full");
+                }, 3, DataSize.ofKilobytes(1), 1, 5);
+
+        List<BulkRegistrationResult> results = new ArrayList<>();
+        bulkOnboardingService.onboardOrganizations(List.of(getPdf("first.pdf")), FED_ADMIN_ROLE, results::add).join();
+
+        assertEquals(1, results.size());
+        assertEquals(BulkRegistrationResult.Status.FAILED, results.get(0).getStatus());
+        verifyNoInteractions(participantService);
+    }
+
+    @Test
+    void onboardOrganizationsRejectedIfCapacityExceeded() {
+        bulkOnboardingService = new BulkOnboardingService(registrationFormService, participantService,
+                new SyncTaskExecutor(), 3, DataSize.ofKilobytes(1), 1, 1);
+        List<MultipartFile> forms = List.of(getPdf("first.pdf"), getPdf("second.pdf"), getPdf("third.pdf"));
+
+        List<BulkRegistrationResult> results = new ArrayList<>();
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> bulkOnboardingService.onboardOrganizations(forms, FED_ADMIN_ROLE, results::add));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertTrue(results.isEmpty());
+        verifyNoInteractions(registrationFormService, participantService);
+    }
+
+    @Test
+    void onboardOrganizationsReleasesCapacity() throws Exception {
+        bulkOnboardingService = new BulkOnboardingService(registrationFormService, participantService,
+                new SyncTaskExecutor(), 3, DataSize.ofKilobytes(1), 1, 1);
+        when(registrationFormService.readRegistrationForm(any())).thenThrow(new IOException("not a PDF"));
+        List<MultipartFile> forms = List.of(getPdf("first.pdf"), getPdf("second.pdf"));
+
+        List<BulkRegistrationResult> results = new ArrayList<>();
+        bulkOnboardingService.onboardOrganizations(forms, FED_ADMIN_ROLE, results::add).join();
+        bulkOnboardingService.onboardOrganizations(forms, FED_ADMIN_ROLE, results::add).join();
+
+        assertEquals(4, results.size());
+    }
+}
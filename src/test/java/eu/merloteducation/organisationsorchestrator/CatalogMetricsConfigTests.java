@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.gxfscataloglibrary.models.participants.ParticipantItem;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import eu.merloteducation.organisationsorchestrator.config.CatalogMetricsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogMetricsConfigTests {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GxfsCatalogService gxfsCatalogService;
+
+    private GxfsCatalogService timedGxfsCatalogService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        gxfsCatalogService = mock(GxfsCatalogService.class);
+        BeanPostProcessor postProcessor = CatalogMetricsConfig.catalogMetricsPostProcessor(
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class));
+        timedGxfsCatalogService = (GxfsCatalogService) postProcessor
+                .postProcessAfterInitialization(gxfsCatalogService, "gxfsCatalogService");
+    }
+
+    @Test
+    void catalogCallsAreTimed() throws Exception {
+        ParticipantItem item = new ParticipantItem();
+        when(gxfsCatalogService.getParticipantById("did:web:example.com")).thenReturn(item);
+
+        assertSame(item, timedGxfsCatalogService.getParticipantById("did:web:example.com"));
+        timedGxfsCatalogService.getParticipantById("did:web:example.com");
+
+        verify(gxfsCatalogService, times(2)).getParticipantById("did:web:example.com");
+        assertEquals(2, meterRegistry.get(CatalogMetricsConfig.CATALOG_TIMER)
+                .tag("method", "getParticipantById").tag("outcome", "SUCCESS").timer().count());
+    }
+
+    @Test
+    void failedCatalogCallsAreTimed() throws Exception {
+        WebClientResponseException exception = WebClientResponseException.create(500, "error", null, null, null);
+        when(gxfsCatalogService.getParticipantById("did:web:example.com")).thenThrow(exception);
+
+        assertThrows(WebClientResponseException.class,
+                () -> timedGxfsCatalogService.getParticipantById("did:web:example.com"));
+
+        assertEquals(1, meterRegistry.get(CatalogMetricsConfig.CATALOG_TIMER)
+                .tag("method", "getParticipantById").tag("outcome", "ERROR")
+                .tag("exception", "InternalServerError").timer().count());
+    }
+}
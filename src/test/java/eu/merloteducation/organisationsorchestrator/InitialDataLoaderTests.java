@@ -29,21 +29,32 @@ import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.gx.particip
 import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.gx.participants.GxLegalRegistrationNumberCredentialSubject;
 import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.merlot.datatypes.ParticipantTermsAndConditions;
 import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.merlot.participants.MerlotLegalParticipantCredentialSubject;
+import eu.merloteducation.modelslib.api.did.ParticipantDidPrivateKeyDto;
 import eu.merloteducation.modelslib.api.organization.MembershipClass;
 import eu.merloteducation.modelslib.api.organization.MerlotParticipantDto;
 import eu.merloteducation.modelslib.api.organization.MerlotParticipantMetaDto;
+import eu.merloteducation.modelslib.daps.OmejdnConnectorCertificateDto;
 import eu.merloteducation.organisationsorchestrator.config.InitialDataLoader;
 import eu.merloteducation.organisationsorchestrator.controller.OrganizationQueryController;
+import eu.merloteducation.organisationsorchestrator.models.InitialDataImportStatus;
+import eu.merloteducation.organisationsorchestrator.models.entities.InitialDataImportEntry;
+import eu.merloteducation.organisationsorchestrator.repositories.InitialDataImportCompletionRepository;
+import eu.merloteducation.organisationsorchestrator.repositories.InitialDataImportEntryRepository;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantCreationProgress;
 import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.File;
 import java.net.URI;
@@ -51,7 +62,10 @@ import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -69,12 +83,56 @@ class InitialDataLoaderTests {
     @MockBean
     private ParticipantService participantService;
 
+    @Autowired
+    private RegistrationFormService registrationFormService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InitialDataImportEntryRepository importLedgerRepository;
+
+    @Autowired
+    private InitialDataImportCompletionRepository importCompletionRepository;
+
     @Value("${init-data.organisations:#{null}}")
     private File initialOrgasResource;
 
     @Value("${init-data.connectors:#{null}}")
     private File initialOrgaConnectorsResource;
 
+    @BeforeEach
+    void beforeEach() {
+        importLedgerRepository.deleteAll();
+        importCompletionRepository.deleteAll();
+    }
+
+    private InitialDataLoader createDataLoader() {
+        return new InitialDataLoader(
+                organizationQueryController,
+                participantService,
+                registrationFormService,
+                objectMapper,
+                importLedgerRepository,
+                importCompletionRepository,
+                transactionManager,
+                initialOrgasResource,
+                0,
+                2,
+                "did:web:example.com:participant:123");
+    }
+
+    private MerlotParticipantDto createParticipantDto() {
+        MerlotParticipantDto dto = new MerlotParticipantDto();
+        dto.setId("did:web:example.com:participant:someid");
+        dto.setMetadata(new MerlotParticipantMetaDto());
+        dto.getMetadata().setMembershipClass(MembershipClass.PARTICIPANT);
+        return dto;
+    }
+
     private ExtendedVerifiableCredential createExtendedVerifiableCredentialFromPojoCs(PojoCredentialSubject cs) throws JsonProcessingException {
         VerifiableCredential vc = VerifiableCredential
                 .builder()
@@ -92,6 +150,7 @@ class InitialDataLoaderTests {
         when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
                 .thenReturn(new PageImpl<>(Collections.emptyList(), Pageable.ofSize(1), 0));
         MerlotParticipantDto dto = new MerlotParticipantDto();
+        dto.setId("did:web:example.com:participant:someid");
 
         ExtendedVerifiablePresentation vp = new ExtendedVerifiablePresentation();
         GxVcard address = new GxVcard();
@@ -127,25 +186,181 @@ class InitialDataLoaderTests {
         dto.setSelfDescription(vp);
         dto.setMetadata(new MerlotParticipantMetaDto());
         dto.getMetadata().setMembershipClass(MembershipClass.PARTICIPANT);
-        when(organizationQueryController.createOrganization(any(), any()))
+        when(participantService.createParticipant(any(), any(), any()))
                 .thenReturn(dto);
         when(organizationQueryController.updateOrganization(any(), any()))
                 .thenReturn(dto);
         when(participantService.updateParticipant(any(), any()))
                 .thenReturn(dto);
-        InitialDataLoader dataLoader = new InitialDataLoader(
-                organizationQueryController,
-                participantService,
-                initialOrgasResource,
-                0,
-                "did:web:example.com:participant:123");
-        dataLoader.run();
+        InitialDataLoader dataLoader = createDataLoader();
+        dataLoader.importInitialData();
 
         // create MERLOT fed, create example, create example 2
-        verify(organizationQueryController, times(3)).createOrganization(any(), any());
+        verify(participantService, times(3)).createParticipant(any(), any(), any());
         // update example for adding connectors, update again for federator role
         // update example2 for adding connectors, update again for MERLOT signature
         verify(organizationQueryController, times(2)).updateOrganization(any(), any());
+
+        InitialDataImportStatus status = dataLoader.getStatus();
+        assertEquals(InitialDataImportStatus.State.COMPLETED, status.getState());
+        assertEquals(2, status.getTotalOrganisations());
+        assertEquals(2, status.getImportedOrganisations());
+        assertEquals(0, status.getFailedOrganisations());
+        assertNotNull(status.getFinishedAt());
+
+        // every registration form is recorded as completed and so is the import, a second run does not resume it
+        assertEquals(3, importLedgerRepository.count());
+        assertTrue(importLedgerRepository.findAll().stream()
+                .allMatch(e -> e.getStep() == InitialDataImportEntry.Step.COMPLETED));
+        assertTrue(importCompletionRepository.existsById("did:web:example.com:participant:123"));
+        clearInvocations(organizationQueryController, participantService);
+        InitialDataLoader restartedDataLoader = createDataLoader();
+        restartedDataLoader.importInitialData();
+        verify(organizationQueryController, never()).getAllOrganizations(anyInt(), anyInt(), any());
+        verify(participantService, never()).createParticipant(any(), any(), any());
+        verify(organizationQueryController, never()).updateOrganization(any(), any());
+        verify(participantService, never()).updateParticipant(any(), any());
+        assertEquals(InitialDataImportStatus.State.SKIPPED, restartedDataLoader.getStatus().getState());
+    }
+
+    @Test
+    void resumeAfterFailedCreation() throws Exception {
+        MerlotParticipantDto dto = createParticipantDto();
+        when(participantService.createParticipant(any(), any(), any()))
+                .thenReturn(dto)
+                .thenReturn(dto)
+                .thenThrow(new IllegalStateException("clearing house unavailable"));
+        when(organizationQueryController.updateOrganization(any(), any()))
+                .thenReturn(dto);
+        when(participantService.updateParticipant(any(), any()))
+                .thenReturn(dto);
+        when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), Pageable.ofSize(1), 0));
+        createDataLoader().importInitialData();
+
+        // organisations exist now, but the unfinished ledger makes the restarted import continue
+        reset(organizationQueryController, participantService);
+        when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
+                .thenReturn(new PageImpl<>(List.of(dto), Pageable.ofSize(1), 1));
+        when(participantService.createParticipant(any(), any(), any()))
+                .thenReturn(dto);
+        when(organizationQueryController.updateOrganization(any(), any()))
+                .thenReturn(dto);
+        InitialDataLoader restartedDataLoader = createDataLoader();
+        restartedDataLoader.importInitialData();
+
+        // only the failed organisation is created
+        verify(participantService, times(1)).createParticipant(any(), any(), any());
+        verify(organizationQueryController, times(1)).updateOrganization(any(), any());
+        verify(participantService, never()).updateParticipant(any(), any());
+        assertEquals(InitialDataImportStatus.State.COMPLETED, restartedDataLoader.getStatus().getState());
+        assertEquals(2, restartedDataLoader.getStatus().getImportedOrganisations());
+    }
+
+    @Test
+    void resumeAfterFailedCreationReusesIssuedDidAndDapsCertificate() throws Exception {
+        MerlotParticipantDto dto = createParticipantDto();
+        ParticipantDidPrivateKeyDto issuedDid = new ParticipantDidPrivateKeyDto();
+        issuedDid.setDid(dto.getId());
+        issuedDid.setPrivateKey("privateKey");
+        OmejdnConnectorCertificateDto issuedCertificate = new OmejdnConnectorCertificateDto();
+        issuedCertificate.setClientId("12:34:56");
+        issuedCertificate.setPassword("password");
+        when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), Pageable.ofSize(1), 0));
+        when(organizationQueryController.updateOrganization(any(), any()))
+                .thenReturn(dto);
+        when(participantService.updateParticipant(any(), any()))
+                .thenReturn(dto);
+        // the third organisation receives its DID and DAPS certificate, but its self-description is not created
+        when(participantService.createParticipant(any(), any(), any()))
+                .thenReturn(dto)
+                .thenReturn(dto)
+                .thenAnswer(i -> {
+                    ParticipantCreationProgress progress = i.getArgument(2);
+                    progress.didIssued(issuedDid);
+                    progress.dapsCertificateIssued(issuedCertificate);
+                    throw new IllegalStateException("catalog unavailable");
+                });
+        createDataLoader().importInitialData();
+        InitialDataImportEntry failedEntry = importLedgerRepository.findAll().stream()
+                .filter(e -> e.getStep() == InitialDataImportEntry.Step.DAPS_ISSUED).findFirst().orElseThrow();
+        assertFalse(failedEntry.getIssuedDid().getPlainText().isEmpty());
+
+        reset(participantService);
+        when(participantService.createParticipant(any(), any(), any())).thenAnswer(i -> {
+            ParticipantCreationProgress progress = i.getArgument(2);
+            assertEquals("privateKey", progress.getIssuedDid().getPrivateKey());
+            assertEquals("password", progress.getIssuedDapsCertificate().getPassword());
+            return dto;
+        });
+        InitialDataLoader restartedDataLoader = createDataLoader();
+        restartedDataLoader.importInitialData();
+
+        verify(participantService, times(1)).createParticipant(any(), any(), any());
+        assertEquals(InitialDataImportStatus.State.COMPLETED, restartedDataLoader.getStatus().getState());
+        // the issued secrets are only kept until the participant is created
+        assertTrue(importLedgerRepository.findAll().stream()
+                .allMatch(e -> e.getStep() == InitialDataImportEntry.Step.COMPLETED && e.getIssuedDid() == null));
+    }
+
+    @Test
+    void resumeAfterFailedUpdate() throws Exception {
+        MerlotParticipantDto dto = createParticipantDto();
+        when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), Pageable.ofSize(1), 0));
+        when(participantService.createParticipant(any(), any(), any()))
+                .thenReturn(dto);
+        when(organizationQueryController.updateOrganization(any(), any()))
+                .thenReturn(dto)
+                .thenThrow(new IllegalStateException("clearing house unavailable"));
+        when(participantService.updateParticipant(any(), any()))
+                .thenReturn(dto);
+        createDataLoader().importInitialData();
+        assertEquals(1, importLedgerRepository.findAll().stream()
+                .filter(e -> e.getStep() == InitialDataImportEntry.Step.CREATED).count());
+
+        reset(organizationQueryController);
+        when(organizationQueryController.updateOrganization(any(), any()))
+                .thenReturn(dto);
+        when(participantService.getParticipantById(dto.getId()))
+                .thenReturn(dto);
+        InitialDataLoader restartedDataLoader = createDataLoader();
+        restartedDataLoader.importInitialData();
+
+        // the already created organisation is only updated, no new DID or self-description is requested
+        verify(participantService, never()).createParticipant(any(), any(), any());
+        verify(participantService, times(1)).getParticipantById(dto.getId());
+        verify(organizationQueryController, times(1)).updateOrganization(any(), any());
+        assertEquals(InitialDataImportStatus.State.COMPLETED, restartedDataLoader.getStatus().getState());
+        assertTrue(importLedgerRepository.findAll().stream()
+                .allMatch(e -> e.getStep() == InitialDataImportEntry.Step.COMPLETED));
+    }
+
+    @Test
+    void failingOrganisationDoesNotStopImport() throws Exception {
+        when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), Pageable.ofSize(1), 0));
+        MerlotParticipantDto dto = createParticipantDto();
+        // MERLOT federation and the first organisation are created, the second organisation fails
+        when(participantService.createParticipant(any(), any(), any()))
+                .thenReturn(dto)
+                .thenReturn(dto)
+                .thenThrow(new IllegalStateException("clearing house unavailable"));
+        when(organizationQueryController.updateOrganization(any(), any()))
+                .thenReturn(dto);
+        when(participantService.updateParticipant(any(), any()))
+                .thenReturn(dto);
+        InitialDataLoader dataLoader = createDataLoader();
+        dataLoader.importInitialData();
+
+        verify(participantService, times(3)).createParticipant(any(), any(), any());
+        verify(organizationQueryController, times(1)).updateOrganization(any(), any());
+
+        InitialDataImportStatus status = dataLoader.getStatus();
+        assertEquals(InitialDataImportStatus.State.FAILED, status.getState());
+        assertEquals(1, status.getImportedOrganisations());
+        assertEquals(1, status.getFailedOrganisations());
     }
 
     @Test
@@ -153,15 +368,32 @@ class InitialDataLoaderTests {
         MerlotParticipantDto dto = new MerlotParticipantDto();
         when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(dto), Pageable.ofSize(1), 1));
-        InitialDataLoader dataLoader = new InitialDataLoader(
-                organizationQueryController,
-                participantService,
-                initialOrgasResource,
-                0,
-                "did:web:example.com:participant:123");
-        dataLoader.run();
-        verify(organizationQueryController, never()).createOrganization(any(), any());
+        InitialDataLoader dataLoader = createDataLoader();
+        dataLoader.importInitialData();
+        verify(participantService, never()).createParticipant(any(), any(), any());
         verify(organizationQueryController, never()).updateOrganization(any(), any());
+        assertEquals(InitialDataImportStatus.State.SKIPPED, dataLoader.getStatus().getState());
+    }
+
+    @Test
+    void runDoesNotBlock() throws Exception {
+        CountDownLatch releaseImport = new CountDownLatch(1);
+        when(organizationQueryController.getAllOrganizations(anyInt(), anyInt(), any())).thenAnswer(i -> {
+            releaseImport.await(10, TimeUnit.SECONDS);
+            return new PageImpl<>(List.of(new MerlotParticipantDto()), Pageable.ofSize(1), 1);
+        });
+        InitialDataLoader dataLoader = createDataLoader();
+
+        dataLoader.run();
+        assertNotEquals(InitialDataImportStatus.State.SKIPPED, dataLoader.getStatus().getState());
+
+        releaseImport.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (dataLoader.getStatus().getState() != InitialDataImportStatus.State.SKIPPED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(InitialDataImportStatus.State.SKIPPED, dataLoader.getStatus().getState());
     }
 
 }
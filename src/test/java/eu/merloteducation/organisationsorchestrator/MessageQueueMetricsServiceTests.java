@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.organisationsorchestrator.config.MessageQueueConfig;
+import eu.merloteducation.organisationsorchestrator.service.MessageQueueMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+
+import java.net.ConnectException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageQueueMetricsServiceTests {
+
+    @Mock
+    private AmqpAdmin amqpAdmin;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MessageQueueMetricsService messageQueueMetricsService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        messageQueueMetricsService = new MessageQueueMetricsService(amqpAdmin, meterRegistry);
+    }
+
+    private double getGaugeValue(String name, String queue) {
+        return meterRegistry.get(name).tag("queue", queue).gauge().value();
+    }
+
+    @Test
+    void refreshQueueMetrics() {
+        when(amqpAdmin.getQueueInfo(MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE))
+                .thenReturn(new QueueInformation(MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE, 42, 4));
+        when(amqpAdmin.getQueueInfo(MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE))
+                .thenReturn(new QueueInformation(MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE, 0, 2));
+
+        messageQueueMetricsService.refreshQueueMetrics();
+
+        assertEquals(42, getGaugeValue("rabbitmq.queue.messages", MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE));
+        assertEquals(4, getGaugeValue("rabbitmq.queue.consumers", MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE));
+        assertEquals(0, getGaugeValue("rabbitmq.queue.messages",
+                MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE));
+        assertEquals(2, getGaugeValue("rabbitmq.queue.consumers",
+                MessageQueueConfig.ORGANIZATIONCONNECTOR_REQUEST_QUEUE));
+    }
+
+    @Test
+    void refreshQueueMetricsKeepsLastValuesWhenBrokerUnavailable() {
+        when(amqpAdmin.getQueueInfo(MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE))
+                .thenReturn(new QueueInformation(MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE, 42, 4))
+                .thenThrow(new AmqpConnectException(new ConnectException("connection refused")));
+
+        messageQueueMetricsService.refreshQueueMetrics();
+        messageQueueMetricsService.refreshQueueMetrics();
+
+        assertEquals(42, getGaugeValue("rabbitmq.queue.messages", MessageQueueConfig.ORGANIZATION_REQUEST_QUEUE));
+    }
+}
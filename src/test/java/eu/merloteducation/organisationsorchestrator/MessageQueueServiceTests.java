@@ -36,6 +36,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
@@ -66,6 +69,8 @@ class MessageQueueServiceTests {
         when(participantService.getParticipantById(any())).thenThrow(RuntimeException.class);
 
         doReturn(new MerlotParticipantDto()).when(participantService).getParticipantById("10");
+        doReturn(Map.of("10", new MerlotParticipantDto())).when(participantService).getParticipantsByIds(List.of("10"));
+        when(participantService.getParticipantsByIds(List.of("garbage"))).thenThrow(RuntimeException.class);
         doReturn(new OrganizationConnectorTransferDto()).when(organizationMetadataService).getConnectorForParticipant("10", "1234");
     }
 
@@ -82,6 +87,18 @@ class MessageQueueServiceTests {
         assertNull(model);
     }
 
+    @Test
+    void requestOrganizationsExistent() {
+        Map<String, MerlotParticipantDto> models = messageQueueService.organizationsRequest(List.of("10"));
+        assertNotNull(models.get("10"));
+    }
+
+    @Test
+    void requestOrganizationsFailing() {
+        Map<String, MerlotParticipantDto> models = messageQueueService.organizationsRequest(List.of("garbage"));
+        assertNull(models);
+    }
+
     @Test
     void requestOrganizationConnectorExistent() {
         ConnectorDetailsRequest connectorDetailsRequest = new ConnectorDetailsRequest("1234", "10");
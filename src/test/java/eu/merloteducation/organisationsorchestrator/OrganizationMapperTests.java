@@ -29,7 +29,9 @@ import eu.merloteducation.organisationsorchestrator.mappers.DocumentField;
 import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
 import eu.merloteducation.organisationsorchestrator.mappers.ParticipantCredentialMapper;
 import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapper;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
 import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import eu.merloteducation.organisationsorchestrator.models.entities.OrganisationSignerConfig;
 import eu.merloteducation.organisationsorchestrator.models.entities.OrganizationMetadata;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -54,6 +56,8 @@ import java.util.List;
 
 import static org.apache.pdfbox.pdmodel.font.Standard14Fonts.FontName.HELVETICA;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 class OrganizationMapperTests {
@@ -301,6 +305,31 @@ class OrganizationMapperTests {
         assertEquals(expectedMetadata.isActive(), targetMetadata.isActive());
     }
 
+    @Test
+    void updateOrganizationMetadataKeepsUnchangedPrivateKey() {
+        OrganisationSignerConfig signerConfig = new OrganisationSignerConfig();
+        EncryptedString privateKey = EncryptedString.fromPlainText("privateKey");
+        signerConfig.setPrivateKey(privateKey);
+        signerConfig.setVerificationMethod("did:web:example.com#key");
+        signerConfig.setMerlotVerificationMethod("did:web:example.com#merlot");
+        OrganizationMetadata targetMetadata = new OrganizationMetadata(orgaId, mailAddress, MembershipClass.PARTICIPANT, true, Collections.emptySet());
+        targetMetadata.setOrganisationSignerConfig(signerConfig);
+
+        MerlotParticipantMetaDto dto = organizationMapper.organizationMetadataToMerlotParticipantMetaDto(targetMetadata);
+        dto.getOrganisationSignerConfigDto().setVerificationMethod("did:web:example.com#otherKey");
+
+        organizationMapper.updateOrganizationMetadataWithMerlotParticipantMetaDto(dto, targetMetadata);
+        assertSame(signerConfig, targetMetadata.getOrganisationSignerConfig());
+        assertSame(privateKey, signerConfig.getPrivateKey());
+        assertEquals("did:web:example.com#otherKey", signerConfig.getVerificationMethod());
+
+        dto.getOrganisationSignerConfigDto().setPrivateKey("otherPrivateKey");
+
+        organizationMapper.updateOrganizationMetadataWithMerlotParticipantMetaDto(dto, targetMetadata);
+        assertNotSame(privateKey, signerConfig.getPrivateKey());
+        assertEquals("otherPrivateKey", signerConfig.getPrivateKey().getPlainText());
+    }
+
     @Test
     void updateOrganizationMetadataAsParticipantCorrectly() {
 
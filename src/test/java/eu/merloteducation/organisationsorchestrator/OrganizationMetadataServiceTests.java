@@ -16,9 +16,12 @@
 
 package eu.merloteducation.organisationsorchestrator;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import eu.merloteducation.modelslib.api.organization.*;
 import eu.merloteducation.organisationsorchestrator.config.InitialDataLoader;
 import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
+import eu.merloteducation.organisationsorchestrator.models.EncryptedString;
+import eu.merloteducation.organisationsorchestrator.models.ParticipantVersion;
 import eu.merloteducation.organisationsorchestrator.models.entities.*;
 import eu.merloteducation.organisationsorchestrator.repositories.OrganizationMetadataRepository;
 import eu.merloteducation.organisationsorchestrator.service.OrganizationMetadataService;
@@ -31,11 +34,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,6 +64,9 @@ class OrganizationMetadataServiceTests {
     @MockBean
     private InitialDataLoader initialDataLoader;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Value("${merlot-domain}")
     private String merlotDomain;
 
@@ -77,6 +87,10 @@ class OrganizationMetadataServiceTests {
     @BeforeEach
     void setUpData() {
 
+        // connectors cached by previous tests may differ from the data set up here
+        ((Cache<?, ?>) ReflectionTestUtils.getField(AopTestUtils.getTargetObject(metadataService), "connectorCache"))
+                .invalidateAll();
+
         OrganizationMetadata metadata1 = new OrganizationMetadata(someOrgaId, "abd@de.fg", MembershipClass.FEDERATOR,
             true, Collections.emptySet());
         OrganizationMetadata metadata2 = new OrganizationMetadata(otherOrgaId, "hij@kl.mn", MembershipClass.PARTICIPANT,
@@ -95,12 +109,12 @@ class OrganizationMetadataServiceTests {
         connector.setIonosS3ExtensionConfig(new IonosS3ExtensionConfig(null, buckets));
         metadata1.setConnectors(Set.of(connector));
         OrganisationSignerConfig signerConfig = new OrganisationSignerConfig();
-        signerConfig.setPrivateKey("privateKey");
+        signerConfig.setPrivateKey(EncryptedString.fromPlainText("privateKey"));
         signerConfig.setVerificationMethod(someOrgaId + "#somemethod");
         signerConfig.setMerlotVerificationMethod(someOrgaId + "#somemerlotmethod");
         metadata1.setOrganisationSignerConfig(signerConfig);
         OrganisationSignerConfig signerConfig2 = new OrganisationSignerConfig();
-        signerConfig2.setPrivateKey("privateKey2");
+        signerConfig2.setPrivateKey(EncryptedString.fromPlainText("privateKey2"));
         signerConfig2.setVerificationMethod(otherOrgaId + "#somemethod");
         signerConfig2.setMerlotVerificationMethod(otherOrgaId + "#somemerlotmethod");
         metadata2.setOrganisationSignerConfig(signerConfig2);
@@ -186,6 +200,70 @@ class OrganizationMetadataServiceTests {
                 actual2.getOrganisationSignerConfigDto().getVerificationMethod());
     }
 
+    @Transactional
+    @Test
+    void getMerlotParticipantMetaDtosCorrectly() {
+
+        String unknownOrgaId = "did:web:" + merlotDomain + ":participant:" + "unknown";
+
+        Map<String, MerlotParticipantMetaDto> actual =
+                metadataService.getMerlotParticipantMetaDtos(List.of(someOrgaId, otherOrgaId, unknownOrgaId));
+
+        assertEquals(2, actual.size());
+        assertFalse(actual.containsKey(unknownOrgaId));
+
+        MerlotParticipantMetaDto actual1 = actual.get(someOrgaId);
+        assertNotNull(actual1);
+        assertEquals(MembershipClass.FEDERATOR, actual1.getMembershipClass());
+        assertEquals("abd@de.fg", actual1.getMailAddress());
+        assertEquals(1, actual1.getConnectors().size());
+
+        MerlotParticipantMetaDto actual2 = actual.get(otherOrgaId);
+        assertNotNull(actual2);
+        assertEquals(MembershipClass.PARTICIPANT, actual2.getMembershipClass());
+        assertEquals("hij@kl.mn", actual2.getMailAddress());
+        assertFalse(actual2.isActive());
+
+        // listings do not carry secrets
+        assertNull(actual1.getOrganisationSignerConfigDto());
+        assertNull(actual2.getOrganisationSignerConfigDto());
+    }
+
+    @Transactional
+    @Test
+    void getMerlotParticipantMetaDtoWithoutSecretsCorrectly() {
+
+        MerlotParticipantMetaDto actual = metadataService.getMerlotParticipantMetaDtoWithoutSecrets(someOrgaId);
+
+        assertEquals(someOrgaId, actual.getOrgaId());
+        assertEquals("abd@de.fg", actual.getMailAddress());
+        assertEquals(1, actual.getConnectors().size());
+        assertNull(actual.getOrganisationSignerConfigDto());
+    }
+
+    @Test
+    void getMerlotParticipantMetaDtosEmpty() {
+
+        assertTrue(metadataService.getMerlotParticipantMetaDtos(List.of()).isEmpty());
+    }
+
+    @Test
+    void getSignerConfigDtoCorrectly() {
+
+        OrganisationSignerConfigDto actual = metadataService.getSignerConfigDto(someOrgaId);
+
+        assertNotNull(actual);
+        assertEquals("privateKey", actual.getPrivateKey());
+        assertEquals(someOrgaId + "#somemethod", actual.getVerificationMethod());
+        assertEquals(someOrgaId + "#somemerlotmethod", actual.getMerlotVerificationMethod());
+    }
+
+    @Test
+    void getSignerConfigDtoNonExistent() {
+
+        assertNull(metadataService.getSignerConfigDto("did:web:" + merlotDomain + ":participant:" + "unknown"));
+    }
+
     @Transactional
     @Test
     void saveMerlotParticipantMetaCorrectly() {
@@ -482,6 +560,58 @@ class OrganizationMetadataServiceTests {
 
     }
 
+    @Test
+    void getConnectorForParticipantNonExistent() {
+
+        assertNull(metadataService.getConnectorForParticipant(someOrgaId, "unknown"));
+    }
+
+    @Test
+    void getConnectorForParticipantAfterUpdate() {
+
+        assertEquals("https://edc1.edchub.dev",
+                metadataService.getConnectorForParticipant(someOrgaId, "edc1").getConnectorEndpoint());
+
+        MerlotParticipantMetaDto metaDto = metadataService.getMerlotParticipantMetaDto(someOrgaId);
+        metaDto.getConnectors().forEach(connector -> connector.setConnectorEndpoint("https://edc2.edchub.dev"));
+        metadataService.updateMerlotParticipantMeta(metaDto);
+
+        // the cached connector must not be served after the update
+        assertEquals("https://edc2.edchub.dev",
+                metadataService.getConnectorForParticipant(someOrgaId, "edc1").getConnectorEndpoint());
+    }
+
+    @Test
+    void getConnectorForParticipantInvalidatedAfterCommit() {
+
+        metadataService.getConnectorForParticipant(someOrgaId, "edc1");
+        Cache<?, ?> connectorCache = (Cache<?, ?>) ReflectionTestUtils.getField(
+                AopTestUtils.getTargetObject(metadataService), "connectorCache");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            metadataService.updateMerlotParticipantMeta(metadataService.getMerlotParticipantMetaDto(someOrgaId));
+            // other transactions could still load and cache the old connector until the commit
+            assertEquals(1, connectorCache.asMap().size());
+        });
+        assertTrue(connectorCache.asMap().isEmpty());
+    }
+
+    @Test
+    void getConnectorForParticipantAfterUpdateByOtherInstance() {
+
+        metadataService.getConnectorForParticipant(someOrgaId, "edc1");
+
+        // an update through another instance does not invalidate the local cache, only the version changes
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            OrganizationMetadata metadata = metadataRepository.findWithConnectorsByOrgaId(someOrgaId).orElseThrow();
+            metadata.getConnectors().forEach(connector -> connector.setConnectorEndpoint("https://edc2.edchub.dev"));
+            metadata.setMetadataVersion(metadata.getMetadataVersion() + 1);
+        });
+
+        assertEquals("https://edc2.edchub.dev",
+                metadataService.getConnectorForParticipant(someOrgaId, "edc1").getConnectorEndpoint());
+    }
+
     @Transactional
     @Test
     void getParticipantsByMembershipClassCorrectly() {
@@ -552,4 +682,43 @@ class OrganizationMetadataServiceTests {
         assertEquals(otherOrgaId, participantIds.get(0));
 
     }
+
+    @Transactional
+    @Test
+    void getParticipantVersionsAfterUpdate() {
+
+        Map<String, ParticipantVersion> versions =
+                metadataService.getParticipantVersions(List.of(someOrgaId, otherOrgaId));
+        assertEquals(0, versions.get(someOrgaId).metadataVersion());
+        assertEquals(0, versions.get(otherOrgaId).metadataVersion());
+        assertNull(versions.get(someOrgaId).sdHash());
+
+        MerlotParticipantMetaDto metaDto = metadataService.getMerlotParticipantMetaDto(otherOrgaId);
+        metaDto.setMailAddress("foo@bar.de");
+        metadataService.updateMerlotParticipantMeta(metaDto);
+
+        versions = metadataService.getParticipantVersions(List.of(someOrgaId, otherOrgaId));
+        assertEquals(0, versions.get(someOrgaId).metadataVersion());
+        assertEquals(1, versions.get(otherOrgaId).metadataVersion());
+    }
+
+    @Transactional
+    @Test
+    void getParticipantVersionsWithSelfDescriptionVersion() {
+
+        metadataService.updateSelfDescriptionVersion(someOrgaId, "hash", otherOrgaId);
+
+        ParticipantVersion version = metadataService.getParticipantVersions(List.of(someOrgaId)).get(someOrgaId);
+        assertEquals("hash", version.sdHash());
+        assertEquals(otherOrgaId, version.signerId());
+    }
+
+    @Test
+    void getParticipantVersionsByMembershipClassCorrectly() {
+
+        List<ParticipantVersion> federatorVersions =
+                metadataService.getParticipantVersionsByMembershipClass(MembershipClass.FEDERATOR);
+        assertEquals(List.of(new ParticipantVersion(someOrgaId, 0, null, null)), federatorVersions);
+        assertTrue(metadataService.getParticipantVersions(List.of()).isEmpty());
+    }
 }
@@ -34,7 +34,12 @@ import eu.merloteducation.organisationsorchestrator.auth.ParticipantAuthorityChe
 import eu.merloteducation.organisationsorchestrator.config.WebSecurityConfig;
 import eu.merloteducation.organisationsorchestrator.controller.OrganizationQueryController;
 import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapper;
+import eu.merloteducation.organisationsorchestrator.models.BulkRegistrationResult;
+import eu.merloteducation.organisationsorchestrator.service.BulkOnboardingService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantETagService;
 import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
 import info.weboftrust.ldsignatures.LdProof;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,28 +50,39 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static eu.merloteducation.organisationsorchestrator.SelfDescriptionDemoData.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.hamcrest.core.StringStartsWith.startsWith;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest({OrganizationQueryController.class, WebSecurityConfig.class, PdfContentMapper.class})
+@WebMvcTest({OrganizationQueryController.class, WebSecurityConfig.class, PdfContentMapper.class,
+        RegistrationFormService.class})
 @Import({JwtAuthConverter.class, AuthorityChecker.class, InterceptorConfig.class, ActiveRoleHeaderHandlerInterceptor.class,
         AuthorityChecker.class, MerlotSecurityConfig.class, ParticipantAuthorityChecker.class})
 @AutoConfigureMockMvc()
@@ -81,6 +97,15 @@ class OrganizationQueryControllerTests {
     @MockBean
     private GxfsCatalogService gxfsCatalogService;
 
+    @MockBean
+    private SignerLegalNameService signerLegalNameService;
+
+    @MockBean
+    private BulkOnboardingService bulkOnboardingService;
+
+    @MockBean
+    private ParticipantETagService participantETagService;
+
     @MockBean
     private JwtAuthConverter jwtAuthConverter;
 
@@ -119,9 +144,9 @@ class OrganizationQueryControllerTests {
 
         lenient().when(participantService.getParticipants(any(), any()))
                 .thenReturn(participantsPage);
-        lenient().when(participantService.getParticipantById(eq("10")))
+        lenient().when(participantService.getParticipantById(eq("10"), anyBoolean()))
                 .thenReturn(participantDto);
-        lenient().when(participantService.getParticipantById(eq("garbage")))
+        lenient().when(participantService.getParticipantById(eq("garbage"), anyBoolean()))
                 .thenThrow(HttpClientErrorException.NotFound.class);
         lenient().when(participantService.updateParticipant(any(), any()))
                 .thenReturn(participantDto);
@@ -136,6 +161,9 @@ class OrganizationQueryControllerTests {
         legalNameResponse.setTotalCount(1);
         legalNameResponse.setItems(List.of(item));
         lenient().when(gxfsCatalogService.getParticipantLegalNameByUri(any(), any())).thenReturn(legalNameResponse);
+        lenient().when(signerLegalNameService.getLegalNameForSigner(any())).thenReturn("Some Orga");
+        lenient().when(signerLegalNameService.getLegalNamesForSigners(any()))
+                .thenReturn(Map.of("did:web:somemethod.com", "Some Orga"));
     }
 
     @Test
@@ -149,6 +177,20 @@ class OrganizationQueryControllerTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getAllOrganisationsResolvesSignersOncePerPage() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf()))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(signerLegalNameService, times(1)).getLegalNamesForSigners(Set.of("did:web:somemethod.com"));
+        verify(signerLegalNameService, never()).getLegalNameForSigner(any());
+    }
+
     @Test
     void getOrganisationByIdUnauthenticatedTest() throws Exception {
         mvc.perform(MockMvcRequestBuilders
@@ -158,6 +200,24 @@ class OrganizationQueryControllerTests {
                         .with(csrf()))
                 .andDo(print())
                 .andExpect(status().isOk());
+
+        // secrets are hidden from non-representatives anyway, so they are not decrypted
+        verify(participantService).getParticipantById("10", false);
+    }
+
+    @Test
+    void getOrganisationByIdAsRepresentative() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/organization/10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .with(jwt().authorities(
+                                new OrganizationRoleGrantedAuthority(OrganizationRole.ORG_LEG_REP, "10"))))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(participantService).getParticipantById("10", true);
     }
 
     @Test
@@ -171,6 +231,74 @@ class OrganizationQueryControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getOrganisationByIdWithETag() throws Exception {
+        when(participantETagService.getParticipantETag(eq("10"), any(), any())).thenReturn("someetag");
+
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/organization/10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"someetag\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    void getOrganisationByIdNotModified() throws Exception {
+        when(participantETagService.getParticipantETag(eq("10"), any(), any())).thenReturn("someetag");
+
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/organization/10")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"someetag\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf()))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"someetag\""));
+
+        verify(participantService, never()).getParticipantById(any(), anyBoolean());
+        verify(signerLegalNameService, never()).getLegalNameForSigner(any());
+    }
+
+    @Test
+    void getAllOrganisationsNotModified() throws Exception {
+        when(participantETagService.getParticipantsETag(any(), any(), any())).thenReturn("pageetag");
+
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/")
+                        .param("page", "1")
+                        .param("size", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"pageetag\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf()))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(participantETagService).getParticipantsETag(eq(PageRequest.of(1, 5)), any(), any());
+        verify(participantService, never()).getParticipants(any(), any());
+    }
+
+    @Test
+    void getAllFederatorsNotModified() throws Exception {
+        when(participantETagService.getFederatorsETag(any(), any())).thenReturn("federatoretag");
+
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/federators")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"federatoretag\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf()))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(participantService, never()).getFederators();
+    }
+
     @Test
     void updateOrganizationAuthorizedExistent() throws Exception {
 
@@ -332,6 +460,22 @@ class OrganizationQueryControllerTests {
             .andExpect(status().reason("Too many files specified"));
     }
 
+    @Test
+    void createOrganizationAuthorizedTooLargeFile() throws Exception {
+        MockMultipartFile multipartFile = new MockMultipartFile("file", "test.pdf",
+            MediaType.APPLICATION_PDF_VALUE, new byte[2 * 1024 * 1024 + 1]);
+        mvc.perform(multipart(HttpMethod.POST, "/organization")
+                .file(multipartFile)
+                .header("Authorization", "")
+                .header("Active-Role", "FedAdmin_did:web:someorga.example.com")
+                .accept(MediaType.APPLICATION_JSON)
+                .with(csrf())
+                .with(jwt().authorities(
+                    new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:someorga.example.com")
+                )))
+            .andExpect(status().isPayloadTooLarge());
+    }
+
     @Test
     void createOrganizationAuthorizedTextFile() throws Exception {
         MockMultipartFile multipartFile = new MockMultipartFile("file", "test.txt",
@@ -350,6 +494,62 @@ class OrganizationQueryControllerTests {
             .andExpect(status().isBadRequest())
             .andExpect(status().reason(startsWith("Invalid registration form file.")));
     }
+    @Test
+    void createOrganizationsAuthorized() throws Exception {
+        MockMultipartFile firstForm = new MockMultipartFile("file", "first.pdf",
+            MediaType.APPLICATION_PDF_VALUE, "first".getBytes());
+        MockMultipartFile secondForm = new MockMultipartFile("file", "second.pdf",
+            MediaType.APPLICATION_PDF_VALUE, "second".getBytes());
+        when(bulkOnboardingService.getRegistrationForms(any())).thenReturn(List.of(firstForm, secondForm));
+        when(bulkOnboardingService.onboardOrganizations(any(), any(), any())).thenAnswer(i -> {
+            Consumer<BulkRegistrationResult> resultConsumer = i.getArgument(2);
+            resultConsumer.accept(new BulkRegistrationResult("first.pdf", BulkRegistrationResult.Status.CREATED,
+                "did:web:example.com:participant:first", null));
+            resultConsumer.accept(new BulkRegistrationResult("second.pdf", BulkRegistrationResult.Status.FAILED,
+                null, "Invalid registration form file."));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        MvcResult result = mvc.perform(multipart(HttpMethod.POST, "/organizations")
+                .file(firstForm)
+                .file(secondForm)
+                .header("Authorization", "")
+                .header("Active-Role", "FedAdmin_did:web:someorga.example.com")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .with(csrf())
+                .with(jwt().authorities(
+                    new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:someorga.example.com")
+                )))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String[] lines = mvc.perform(asyncDispatch(result))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"participantId\":\"did:web:example.com:participant:first\""));
+        assertTrue(lines[1].contains("\"status\":\"FAILED\""));
+    }
+
+    @Test
+    void createOrganizationsForbidden() throws Exception {
+        MockMultipartFile form = new MockMultipartFile("file", "first.pdf",
+            MediaType.APPLICATION_PDF_VALUE, "first".getBytes());
+        mvc.perform(multipart(HttpMethod.POST, "/organizations")
+                .file(form)
+                .header("Authorization", "")
+                .header("Active-Role", "OrgLegRep_did:web:someorga.example.com")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .with(csrf())
+                .with(jwt().authorities(
+                    new OrganizationRoleGrantedAuthority(OrganizationRole.ORG_LEG_REP, "did:web:someorga.example.com")
+                )))
+            .andDo(print())
+            .andExpect(status().isForbidden());
+        verify(bulkOnboardingService, never()).onboardOrganizations(any(), any(), any());
+    }
+
     @Test
     void createOrganizationUnauthorized() throws Exception {
         MockMultipartFile multipartFile = new MockMultipartFile("file", "test.pdf",
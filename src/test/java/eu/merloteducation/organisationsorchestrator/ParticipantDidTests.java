@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.organisationsorchestrator.models.ParticipantDid;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticipantDidTests {
+
+    private static final List<String> IDS = Arrays.asList(
+            "did:web:example.com:participant:someid",
+            "did:web:localhost%3A8443:participant:df15587a-0760-32b5-9c42-bb7be66e8076",
+            "did:web:example.com#key-1",
+            "did:web:",
+            "did:web:example.com/participant",
+            "did:web:example.com:participant:some id",
+            "did:web:exämple.com",
+            "did:key:example.com",
+            "DID:web:example.com",
+            "did:web",
+            "garbage",
+            "",
+            null);
+
+    @Test
+    void isValidMatchesRegex() {
+        for (String id : IDS) {
+            assertEquals(id != null && id.matches("did:web:[-.A-Za-z0-9:%#]*"), ParticipantDid.isValid(id), id);
+        }
+    }
+
+    @Test
+    void parseValidDid() {
+        ParticipantDid did = ParticipantDid.parse("did:web:example.com:participant:someid");
+
+        assertEquals("did:web:example.com:participant:someid", did.getValue());
+        assertEquals(did, ParticipantDid.parse("did:web:example.com:participant:someid"));
+    }
+
+    @Test
+    void parseInvalidDid() {
+        assertThrows(IllegalArgumentException.class, () -> ParticipantDid.parse("garbage"));
+        assertThrows(IllegalArgumentException.class, () -> ParticipantDid.parse(null));
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.merloteducation.gxfscataloglibrary.models.credentials.ExtendedVerifiablePresentation;
+import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryUriItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionMeta;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.gx.participants.GxLegalParticipantCredentialSubject;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import eu.merloteducation.modelslib.api.organization.MembershipClass;
+import eu.merloteducation.modelslib.api.organization.MerlotParticipantMetaDto;
+import eu.merloteducation.organisationsorchestrator.config.InitialDataLoader;
+import eu.merloteducation.organisationsorchestrator.models.entities.ParticipantDirectoryEntry;
+import eu.merloteducation.organisationsorchestrator.models.entities.TaskLease;
+import eu.merloteducation.organisationsorchestrator.repositories.ParticipantDirectoryRepository;
+import eu.merloteducation.organisationsorchestrator.repositories.TaskLeaseRepository;
+import eu.merloteducation.organisationsorchestrator.service.OrganizationMetadataService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantDirectoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static eu.merloteducation.organisationsorchestrator.SelfDescriptionDemoData.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+@EnableConfigurationProperties
+class ParticipantDirectoryServiceTests {
+
+    @Autowired
+    private ParticipantDirectoryService participantDirectoryService;
+
+    @Autowired
+    private ParticipantDirectoryRepository participantDirectoryRepository;
+
+    @Autowired
+    private TaskLeaseRepository taskLeaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private GxfsCatalogService gxfsCatalogService;
+
+    @MockBean
+    private OrganizationMetadataService organizationMetadataService;
+
+    @MockBean
+    private InitialDataLoader initialDataLoader;
+
+    private static final String SOME_ORGA_ID = "did:web:example.com:participant:someorga";
+
+    private static final String OTHER_ORGA_ID = "did:web:example.com:participant:otherorga";
+
+    private ExtendedVerifiablePresentation createVp(String id, String name) throws JsonProcessingException {
+        GxLegalParticipantCredentialSubject gxParticipantCs = getGxParticipantCs(id);
+        gxParticipantCs.setName(name);
+        return createVpFromCsList(List.of(gxParticipantCs, getGxRegistrationNumberCs(id), getMerlotParticipantCs(id)),
+                "did:web:someorga");
+    }
+
+    private MerlotParticipantMetaDto createMetaDto(String id, boolean active) {
+        MerlotParticipantMetaDto metaDto = new MerlotParticipantMetaDto();
+        metaDto.setOrgaId(id);
+        metaDto.setMailAddress("mymail@example.com");
+        metaDto.setMembershipClass(MembershipClass.PARTICIPANT);
+        metaDto.setActive(active);
+        return metaDto;
+    }
+
+    private GXFSCatalogListResponse<GXFSQueryUriItem> mockCatalogParticipants(
+            Map<String, ExtendedVerifiablePresentation> participants) {
+        List<GXFSQueryUriItem> uriItems = new ArrayList<>();
+        List<SelfDescriptionItem> sdItems = new ArrayList<>();
+        participants.forEach((id, vp) -> {
+            GXFSQueryUriItem uriItem = new GXFSQueryUriItem();
+            uriItem.setUri(id);
+            uriItems.add(uriItem);
+
+            SelfDescriptionMeta meta = new SelfDescriptionMeta();
+            meta.setContent(vp);
+            meta.setId(id);
+            meta.setSubjectId(id);
+            meta.setSdHash("hash-" + id);
+            meta.setStatus("active");
+            SelfDescriptionItem sdItem = new SelfDescriptionItem();
+            sdItem.setMeta(meta);
+            sdItems.add(sdItem);
+        });
+
+        GXFSCatalogListResponse<GXFSQueryUriItem> uriResponse = new GXFSCatalogListResponse<>();
+        uriResponse.setTotalCount(uriItems.size());
+        uriResponse.setItems(uriItems);
+        GXFSCatalogListResponse<SelfDescriptionItem> sdResponse = new GXFSCatalogListResponse<>();
+        sdResponse.setTotalCount(sdItems.size());
+        sdResponse.setItems(sdItems);
+
+        when(gxfsCatalogService.getSortedParticipantUriPage(any(), any(), anyLong(), anyLong())).thenReturn(uriResponse);
+        lenient().when(gxfsCatalogService.getSelfDescriptionsByIds(any())).thenReturn(sdResponse);
+        return uriResponse;
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(participantDirectoryService, "gxfsCatalogService", gxfsCatalogService);
+        ReflectionTestUtils.setField(participantDirectoryService, "organizationMetadataService",
+                organizationMetadataService);
+        ReflectionTestUtils.setField(participantDirectoryService, "ready", false);
+        ReflectionTestUtils.setField(participantDirectoryService, "reconcilePageSize", 100);
+    }
+
+    @AfterEach
+    void cleanUpData() {
+        participantDirectoryRepository.deleteAll();
+        taskLeaseRepository.deleteAll();
+    }
+
+    @Test
+    void reconcileFillsDirectorySortedByName() throws Exception {
+        mockCatalogParticipants(Map.of(
+                SOME_ORGA_ID, createVp(SOME_ORGA_ID, "Zebra Orga"),
+                OTHER_ORGA_ID, createVp(OTHER_ORGA_ID, "alpha Orga")));
+        when(organizationMetadataService.getMerlotParticipantMetaDtos(any())).thenReturn(Map.of(
+                SOME_ORGA_ID, createMetaDto(SOME_ORGA_ID, true),
+                OTHER_ORGA_ID, createMetaDto(OTHER_ORGA_ID, false)));
+
+        assertFalse(participantDirectoryService.isReady());
+        participantDirectoryService.reconcile();
+        assertTrue(participantDirectoryService.isReady());
+
+        Page<ParticipantDirectoryEntry> allEntries = participantDirectoryService.getEntries(PageRequest.of(0, 9), true);
+        assertEquals(2, allEntries.getTotalElements());
+        assertEquals(OTHER_ORGA_ID, allEntries.getContent().get(0).getParticipantId());
+        assertEquals(SOME_ORGA_ID, allEntries.getContent().get(1).getParticipantId());
+        assertEquals("hash-" + SOME_ORGA_ID, allEntries.getContent().get(1).getSdHash());
+
+        Page<ParticipantDirectoryEntry> activeEntries = participantDirectoryService.getEntries(PageRequest.of(0, 9), false);
+        assertEquals(1, activeEntries.getTotalElements());
+        assertEquals(SOME_ORGA_ID, activeEntries.getContent().get(0).getParticipantId());
+
+        assertEquals(List.of(OTHER_ORGA_ID, SOME_ORGA_ID),
+                participantDirectoryService.getParticipantIds(PageRequest.of(0, 9), true).getContent());
+        Page<String> activeIds = participantDirectoryService.getParticipantIds(PageRequest.of(0, 9), false);
+        assertEquals(1, activeIds.getTotalElements());
+        assertEquals(List.of(SOME_ORGA_ID), activeIds.getContent());
+
+        ExtendedVerifiablePresentation sd = participantDirectoryService.getSelfDescription(activeEntries.getContent().get(0));
+        assertEquals("Zebra Orga", sd.findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class).getName());
+    }
+
+    @Test
+    void reconcileRemovesParticipantsMissingInCatalog() throws Exception {
+        participantDirectoryService.updateEntry(createVp(OTHER_ORGA_ID, "Other Orga"), null,
+                createMetaDto(OTHER_ORGA_ID, true));
+        mockCatalogParticipants(Map.of(SOME_ORGA_ID, createVp(SOME_ORGA_ID, "Some Orga")));
+        when(organizationMetadataService.getMerlotParticipantMetaDtos(any())).thenReturn(Map.of(
+                SOME_ORGA_ID, createMetaDto(SOME_ORGA_ID, true)));
+
+        participantDirectoryService.reconcile();
+
+        List<ParticipantDirectoryEntry> entries = participantDirectoryRepository.findAll();
+        assertEquals(1, entries.size());
+        assertEquals(SOME_ORGA_ID, entries.get(0).getParticipantId());
+    }
+
+    @Test
+    void reconcileKeepsEntriesWrittenDuringReconciliation() throws Exception {
+        mockCatalogParticipants(Map.of(SOME_ORGA_ID, createVp(SOME_ORGA_ID, "Some Orga")));
+        when(organizationMetadataService.getMerlotParticipantMetaDtos(any())).thenAnswer(invocation -> {
+            // an update and a creation finish while the catalog is scanned
+            participantDirectoryService.updateEntry(createVp(SOME_ORGA_ID, "Renamed Orga"), null,
+                    createMetaDto(SOME_ORGA_ID, true));
+            participantDirectoryService.updateEntry(createVp(OTHER_ORGA_ID, "Other Orga"), null,
+                    createMetaDto(OTHER_ORGA_ID, true));
+            return Map.of(SOME_ORGA_ID, createMetaDto(SOME_ORGA_ID, true));
+        });
+
+        participantDirectoryService.reconcile();
+
+        assertTrue(participantDirectoryService.isReady());
+        assertEquals("Renamed Orga", participantDirectoryRepository.findById(SOME_ORGA_ID).orElseThrow().getName());
+        assertTrue(participantDirectoryRepository.findById(OTHER_ORGA_ID).isPresent());
+    }
+
+    @Test
+    void reconcileFailureKeepsDirectoryNotReady() {
+        when(gxfsCatalogService.getSortedParticipantUriPage(any(), any(), anyLong(), anyLong()))
+                .thenThrow(new RuntimeException("catalog unavailable"));
+
+        participantDirectoryService.reconcile();
+
+        assertFalse(participantDirectoryService.isReady());
+    }
+
+    @Test
+    void reconcileFailureOnLaterPageWritesNothing() throws Exception {
+        ReflectionTestUtils.setField(participantDirectoryService, "reconcilePageSize", 1);
+        GXFSCatalogListResponse<GXFSQueryUriItem> firstPage =
+                mockCatalogParticipants(Map.of(SOME_ORGA_ID, createVp(SOME_ORGA_ID, "Some Orga")));
+        firstPage.setTotalCount(2);
+        when(gxfsCatalogService.getSortedParticipantUriPage(any(), any(), eq(0L), anyLong())).thenReturn(firstPage);
+        when(gxfsCatalogService.getSortedParticipantUriPage(any(), any(), eq(1L), anyLong()))
+                .thenThrow(new RuntimeException("catalog unavailable"));
+        when(organizationMetadataService.getMerlotParticipantMetaDtos(any())).thenReturn(Map.of(
+                SOME_ORGA_ID, createMetaDto(SOME_ORGA_ID, true)));
+
+        participantDirectoryService.reconcile();
+
+        assertFalse(participantDirectoryService.isReady());
+        assertTrue(participantDirectoryRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void reconcileIsSkippedWhileAnotherInstanceHoldsLease() {
+        taskLeaseRepository.save(new TaskLease("participant-directory-reconcile", "other-instance",
+                Instant.now().plus(Duration.ofHours(1)), null));
+
+        participantDirectoryService.reconcile();
+
+        assertFalse(participantDirectoryService.isReady());
+        verify(gxfsCatalogService, never()).getSortedParticipantUriPage(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void reconcileByAnotherInstanceMakesDirectoryReady() {
+        taskLeaseRepository.save(new TaskLease("participant-directory-reconcile", "other-instance",
+                Instant.now().plus(Duration.ofHours(1)), Instant.now()));
+
+        participantDirectoryService.reconcile();
+
+        assertTrue(participantDirectoryService.isReady());
+        verify(gxfsCatalogService, never()).getSortedParticipantUriPage(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void reconcileTakesOverExpiredLease() throws Exception {
+        taskLeaseRepository.save(new TaskLease("participant-directory-reconcile", "other-instance",
+                Instant.now().minus(Duration.ofMinutes(1)), Instant.now().minus(Duration.ofMinutes(5))));
+        mockCatalogParticipants(Map.of(SOME_ORGA_ID, createVp(SOME_ORGA_ID, "Some Orga")));
+        when(organizationMetadataService.getMerlotParticipantMetaDtos(any())).thenReturn(Map.of(
+                SOME_ORGA_ID, createMetaDto(SOME_ORGA_ID, true)));
+
+        participantDirectoryService.reconcile();
+
+        assertTrue(participantDirectoryService.isReady());
+        assertEquals(1, participantDirectoryRepository.count());
+        assertNotEquals("other-instance",
+                taskLeaseRepository.findById("participant-directory-reconcile").orElseThrow().getOwner());
+    }
+
+    @Test
+    void updateEntryIsWrittenAfterCommit() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExtendedVerifiablePresentation vp = createVp(SOME_ORGA_ID, "Some Orga");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            participantDirectoryService.updateEntry(vp, null, createMetaDto(SOME_ORGA_ID, true));
+            assertTrue(participantDirectoryRepository.findById(SOME_ORGA_ID).isEmpty());
+        });
+        assertTrue(participantDirectoryRepository.findById(SOME_ORGA_ID).isPresent());
+    }
+
+    @Test
+    void updateEntryIsNotWrittenOnRollback() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExtendedVerifiablePresentation vp = createVp(SOME_ORGA_ID, "Some Orga");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            participantDirectoryService.updateEntry(vp, null, createMetaDto(SOME_ORGA_ID, true));
+            status.setRollbackOnly();
+        });
+        assertTrue(participantDirectoryRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void updateEntryReplacesExistingEntry() throws Exception {
+        participantDirectoryService.updateEntry(createVp(SOME_ORGA_ID, "Some Orga"), null,
+                createMetaDto(SOME_ORGA_ID, true));
+        participantDirectoryService.updateEntry(createVp(SOME_ORGA_ID, "Renamed Orga"), null,
+                createMetaDto(SOME_ORGA_ID, false));
+
+        List<ParticipantDirectoryEntry> entries = participantDirectoryRepository.findAll();
+        assertEquals(1, entries.size());
+        assertEquals("Renamed Orga", entries.get(0).getName());
+        assertEquals("renamed orga", entries.get(0).getNameSortKey());
+        assertFalse(entries.get(0).isActive());
+        assertEquals(Collections.emptyList(),
+                participantDirectoryService.getEntries(PageRequest.of(0, 9), false).getContent());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.modelslib.api.organization.MembershipClass;
+import eu.merloteducation.organisationsorchestrator.models.ParticipantVersion;
+import eu.merloteducation.organisationsorchestrator.service.OrganizationMetadataService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantDirectoryService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantETagService;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipantETagServiceTests {
+
+    private static final String SOME_ORGA_ID = "did:web:example.com:participant:someorga";
+
+    private static final String OTHER_ORGA_ID = "did:web:example.com:participant:otherorga";
+
+    @Mock
+    private ParticipantDirectoryService participantDirectoryService;
+
+    @Mock
+    private OrganizationMetadataService organizationMetadataService;
+
+    @Mock
+    private SignerLegalNameService signerLegalNameService;
+
+    private ParticipantETagService participantETagService;
+
+    private Authentication getAuthentication(String orgaId) {
+        return new TestingAuthenticationToken("user", null, "OrgLegRep_" + orgaId);
+    }
+
+    @BeforeEach
+    void setUp() {
+        participantETagService = new ParticipantETagService(participantDirectoryService, organizationMetadataService,
+                signerLegalNameService);
+        lenient().when(participantDirectoryService.isReady()).thenReturn(true);
+    }
+
+    @Test
+    void getParticipantETagChangesWithVersion() {
+        when(organizationMetadataService.getParticipantVersions(List.of(SOME_ORGA_ID)))
+                .thenReturn(Map.of(SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 1, "hash", null)))
+                .thenReturn(Map.of(SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 1, "hash", null)))
+                .thenReturn(Map.of(SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 2, "hash", null)))
+                .thenReturn(Map.of(SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 2, "otherhash", null)));
+        Authentication authentication = getAuthentication(SOME_ORGA_ID);
+
+        String etag = participantETagService.getParticipantETag(SOME_ORGA_ID, authentication, null);
+        assertNotNull(etag);
+        assertEquals(etag, participantETagService.getParticipantETag(SOME_ORGA_ID, authentication, null));
+        String updatedEtag = participantETagService.getParticipantETag(SOME_ORGA_ID, authentication, null);
+        assertNotEquals(etag, updatedEtag);
+        assertNotEquals(updatedEtag, participantETagService.getParticipantETag(SOME_ORGA_ID, authentication, null));
+    }
+
+    @Test
+    void getParticipantETagChangesWithSignerLegalName() {
+        when(organizationMetadataService.getParticipantVersions(List.of(SOME_ORGA_ID)))
+                .thenReturn(Map.of(SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 1, "hash", OTHER_ORGA_ID)));
+        when(signerLegalNameService.getLegalNamesForSigners(Set.of(OTHER_ORGA_ID)))
+                .thenReturn(Map.of(OTHER_ORGA_ID, "Other Orga"))
+                .thenReturn(Map.of(OTHER_ORGA_ID, "Renamed Orga"));
+
+        // the signed participant itself is unchanged
+        assertNotEquals(participantETagService.getParticipantETag(SOME_ORGA_ID, null, null),
+                participantETagService.getParticipantETag(SOME_ORGA_ID, null, null));
+    }
+
+    @Test
+    void getParticipantETagDependsOnRequester() {
+        when(organizationMetadataService.getParticipantVersions(List.of(SOME_ORGA_ID)))
+                .thenReturn(Map.of(SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 1, "hash", null)));
+
+        String representativeEtag = participantETagService.getParticipantETag(SOME_ORGA_ID,
+                getAuthentication(SOME_ORGA_ID), "OrgLegRep_" + SOME_ORGA_ID);
+        String otherEtag = participantETagService.getParticipantETag(SOME_ORGA_ID,
+                getAuthentication(OTHER_ORGA_ID), "OrgLegRep_" + OTHER_ORGA_ID);
+        String anonymousEtag = participantETagService.getParticipantETag(SOME_ORGA_ID, null, null);
+
+        assertNotEquals(representativeEtag, otherEtag);
+        assertNotEquals(representativeEtag, anonymousEtag);
+        assertNotEquals(otherEtag, anonymousEtag);
+    }
+
+    @Test
+    void getParticipantETagUnknownParticipant() {
+        when(organizationMetadataService.getParticipantVersions(any())).thenReturn(Map.of());
+
+        assertNull(participantETagService.getParticipantETag(SOME_ORGA_ID, null, null));
+    }
+
+    @Test
+    void getETagsDirectoryNotReady() {
+        when(participantDirectoryService.isReady()).thenReturn(false);
+
+        assertNull(participantETagService.getParticipantETag(SOME_ORGA_ID, null, null));
+        assertNull(participantETagService.getFederatorsETag(null, null));
+        assertNull(participantETagService.getParticipantsETag(PageRequest.of(0, 9), null, null));
+        verifyNoInteractions(organizationMetadataService);
+    }
+
+    @Test
+    void getFederatorsETagChangesWithFederators() {
+        when(organizationMetadataService.getParticipantVersionsByMembershipClass(MembershipClass.FEDERATOR))
+                .thenReturn(List.of(new ParticipantVersion(SOME_ORGA_ID, 0, "hash", null)))
+                .thenReturn(List.of(new ParticipantVersion(OTHER_ORGA_ID, 0, "hash", null),
+                        new ParticipantVersion(SOME_ORGA_ID, 0, "hash", null)));
+
+        assertNotEquals(participantETagService.getFederatorsETag(null, null),
+                participantETagService.getFederatorsETag(null, null));
+    }
+
+    @Test
+    void getParticipantsETagDependsOnPageContent() {
+        when(participantDirectoryService.getParticipantIds(any(), eq(false)))
+                .thenReturn(new PageImpl<>(List.of(SOME_ORGA_ID, OTHER_ORGA_ID), PageRequest.of(0, 9), 2))
+                .thenReturn(new PageImpl<>(List.of(OTHER_ORGA_ID, SOME_ORGA_ID), PageRequest.of(0, 9), 2));
+        when(organizationMetadataService.getParticipantVersions(any())).thenReturn(Map.of(
+                SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 0, "hash", null),
+                OTHER_ORGA_ID, new ParticipantVersion(OTHER_ORGA_ID, 0, null, null)));
+
+        // a renamed participant changes the page order
+        assertNotEquals(participantETagService.getParticipantsETag(PageRequest.of(0, 9), null, null),
+                participantETagService.getParticipantsETag(PageRequest.of(0, 9), null, null));
+    }
+
+    @Test
+    void getParticipantsETagListsInactiveForFedAdmin() {
+        when(participantDirectoryService.getParticipantIds(any(), anyBoolean()))
+                .thenReturn(new PageImpl<>(List.of(SOME_ORGA_ID), PageRequest.of(0, 9), 1));
+        when(organizationMetadataService.getParticipantVersions(any())).thenReturn(Map.of(
+                SOME_ORGA_ID, new ParticipantVersion(SOME_ORGA_ID, 0, "hash", null)));
+
+        assertNotNull(participantETagService.getParticipantsETag(PageRequest.of(0, 9), null,
+                "FedAdmin_" + SOME_ORGA_ID));
+        verify(participantDirectoryService).getParticipantIds(PageRequest.of(0, 9), true);
+    }
+}
@@ -48,10 +48,15 @@ import eu.merloteducation.organisationsorchestrator.mappers.OrganizationMapper;
 import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
 import eu.merloteducation.organisationsorchestrator.models.entities.OcmAgentSettings;
 import eu.merloteducation.organisationsorchestrator.models.entities.OrganizationMetadata;
+import eu.merloteducation.organisationsorchestrator.models.entities.ParticipantDirectoryEntry;
 import eu.merloteducation.organisationsorchestrator.service.OmejdnConnectorApiClient;
 import eu.merloteducation.organisationsorchestrator.service.OrganizationMetadataService;
 import eu.merloteducation.organisationsorchestrator.service.OutgoingMessageService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantDirectoryService;
 import eu.merloteducation.organisationsorchestrator.service.ParticipantService;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantSdCacheService;
+import eu.merloteducation.organisationsorchestrator.service.SelfDescriptionCleanupService;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
 import org.apache.commons.text.StringEscapeUtils;
 
 import static eu.merloteducation.organisationsorchestrator.SelfDescriptionDemoData.*;
@@ -62,12 +67,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -78,6 +85,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.not;
@@ -113,6 +121,18 @@ class ParticipantServiceTests {
     @MockBean
     private OmejdnConnectorApiClient omejdnConnectorApiClient;
 
+    @MockBean
+    private SignerLegalNameService signerLegalNameService;
+
+    @MockBean
+    private ParticipantDirectoryService participantDirectoryService;
+
+    @MockBean
+    private SelfDescriptionCleanupService selfDescriptionCleanupService;
+
+    @Autowired
+    private ParticipantSdCacheService participantSdCacheService;
+
     private final MerlotDidServiceClientFake merlotDidServiceClientFake = new MerlotDidServiceClientFake();
 
     String mailAddress = "test@test.de";
@@ -235,6 +255,10 @@ class ParticipantServiceTests {
         ReflectionTestUtils.setField(participantService, "organizationMetadataService", organizationMetadataService);
         ReflectionTestUtils.setField(participantService, "outgoingMessageService", outgoingMessageService);
         ReflectionTestUtils.setField(participantService, "omejdnConnectorApiClient", new OmejdnConnectorApiClientFake());
+        ReflectionTestUtils.setField(participantService, "signerLegalNameService", signerLegalNameService);
+        ReflectionTestUtils.setField(participantService, "participantDirectoryService", participantDirectoryService);
+        ReflectionTestUtils.setField(participantService, "selfDescriptionCleanupService", selfDescriptionCleanupService);
+        participantSdCacheService.invalidateAll();
 
         ParticipantItem participantItem = createMockParticipantItem();
 
@@ -277,13 +301,21 @@ class ParticipantServiceTests {
         lenient().when(organizationMetadataService.getMerlotParticipantMetaDto(eq("did:web:example.com:participant:emptysignerconfig"))).thenReturn(metaDtoEmptySignerConfig);
         lenient().when(organizationMetadataService.getMerlotParticipantMetaDto(eq("did:web:example.com:participant:someorga"))).thenReturn(metaDto);
         lenient().when(organizationMetadataService.getMerlotParticipantMetaDto(eq("did:web:example.com:participant:somefedorga"))).thenReturn(metaDto);
+        lenient().when(organizationMetadataService.getMerlotParticipantMetaDtoWithoutSecrets(eq("did:web:example.com:participant:someorga"))).thenReturn(metaDtoNoSignerConfig);
+        lenient().when(organizationMetadataService.getSignerConfigDto(eq("did:web:example.com:participant:nosignerconfig"))).thenReturn(null);
+        lenient().when(organizationMetadataService.getSignerConfigDto(eq("did:web:example.com:participant:emptysignerconfig"))).thenReturn(metaDtoEmptySignerConfig.getOrganisationSignerConfigDto());
+        lenient().when(organizationMetadataService.getSignerConfigDto(eq("did:web:example.com:participant:someorga"))).thenReturn(metaDto.getOrganisationSignerConfigDto());
+        lenient().when(organizationMetadataService.getSignerConfigDto(eq("did:web:example.com:participant:somefedorga"))).thenReturn(metaDto.getOrganisationSignerConfigDto());
+        lenient().when(organizationMetadataService.getMerlotParticipantMetaDtos(any()))
+                .thenReturn(Map.of("did:web:example.com:participant:someorga", metaDto));
         lenient().when(organizationMetadataService.getParticipantsByMembershipClass(eq(MembershipClass.FEDERATOR))).thenReturn(new ArrayList<>());
         lenient().when(organizationMetadataService.updateMerlotParticipantMeta(any())).thenAnswer(i -> i.getArguments()[0]);
         lenient().when(organizationMetadataService.getInactiveParticipantsIds()).thenReturn(new ArrayList<>());
         lenient().when(organizationMetadataService.saveMerlotParticipantMeta(any())).thenReturn(metaDto);
 
-        lenient().when(outgoingMessageService.requestNewDidPrivateKey(any())).thenReturn(
-                merlotDidServiceClientFake.generateDidAndPrivateKey(new ParticipantDidPrivateKeyCreateRequest()));
+        lenient().when(outgoingMessageService.requestNewDidPrivateKeyAsync(any())).thenReturn(
+                CompletableFuture.completedFuture(
+                        merlotDidServiceClientFake.generateDidAndPrivateKey(new ParticipantDidPrivateKeyCreateRequest())));
     }
 
     @Test
@@ -307,6 +339,31 @@ class ParticipantServiceTests {
 
         assertEquals(0,  organizations.getContent().get(0).getMetadata().getConnectors().size());
         assertNull(organizations.getContent().get(0).getMetadata().getSignedBy());
+
+        // metadata of the page is resolved in bulk instead of once per participant
+        verify(organizationMetadataService, times(1)).getMerlotParticipantMetaDtos(any());
+        verify(organizationMetadataService, never()).getMerlotParticipantMetaDto(any());
+    }
+
+    @Test
+    void getAllParticipantsFromDirectory() throws Exception {
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN.getRoleName() + "_anything");
+        ParticipantDirectoryEntry entry = new ParticipantDirectoryEntry();
+        entry.setParticipantId("did:web:example.com:participant:someorga");
+        PageRequest pageRequest = PageRequest.of(0, 9);
+
+        when(participantDirectoryService.isReady()).thenReturn(true);
+        when(participantDirectoryService.getEntries(pageRequest, true)).thenReturn(new PageImpl<>(List.of(entry), pageRequest, 1));
+        when(participantDirectoryService.getSelfDescription(entry)).thenReturn(createMockParticipantItem().getSelfDescription());
+
+        Page<MerlotParticipantDto> organizations = participantService.getParticipants(pageRequest, activeRole);
+        assertEquals(1, organizations.getTotalElements());
+        assertEquals("did:web:example.com:participant:someorga", organizations.getContent().get(0).getSelfDescription()
+                .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class).getId());
+        assertEquals("mymail@example.com", organizations.getContent().get(0).getMetadata().getMailAddress());
+
+        verify(gxfsCatalogService, never()).getSortedParticipantUriPage(any(), any(), anyLong(), anyLong());
+        verify(gxfsCatalogService, never()).getSelfDescriptionsByIds(any());
     }
 
     @Test
@@ -382,6 +439,58 @@ class ParticipantServiceTests {
         assertEquals(0,  organization.getMetadata().getConnectors().size());
     }
 
+    @Test
+    void getParticipantsByIds() throws Exception {
+        Map<String, MerlotParticipantDto> organizations = participantService.getParticipantsByIds(List.of(
+                "did:web:example.com:participant:someorga",
+                "did:web:example.com:participant:someorga",
+                "did:web:example.com:participant:unknown",
+                "garbage"));
+
+        assertEquals(1, organizations.size());
+        MerlotParticipantDto organization = organizations.get("did:web:example.com:participant:someorga");
+        assertNotNull(organization);
+        assertEquals("mymail@example.com", organization.getMetadata().getMailAddress());
+        assertEquals("did:web:example.com:participant:someorga", organization.getSelfDescription()
+                .findFirstCredentialSubjectByType(MerlotLegalParticipantCredentialSubject.class).getId());
+
+        // all organizations are resolved at once
+        verify(organizationMetadataService, times(1)).getMerlotParticipantMetaDtos(any());
+        verify(gxfsCatalogService, times(1)).getSelfDescriptionsByIds(any());
+        verify(gxfsCatalogService, never()).getParticipantById(any());
+    }
+
+    @Test
+    void getParticipantsByIdsUsesSdCache() throws Exception {
+        participantService.getParticipantsByIds(List.of("did:web:example.com:participant:someorga"));
+        participantService.getParticipantsByIds(List.of("did:web:example.com:participant:someorga"));
+
+        verify(gxfsCatalogService, times(1)).getSelfDescriptionsByIds(any());
+    }
+
+    @Test
+    void getParticipantsByIdsRefreshesOutdatedCachedSd() throws Exception {
+        String orgaId = "did:web:example.com:participant:someorga";
+        when(participantDirectoryService.getSdHashes(any())).thenReturn(Map.of(orgaId, "hash1"));
+
+        participantService.getParticipantsByIds(List.of(orgaId));
+        participantService.getParticipantsByIds(List.of(orgaId));
+        verify(gxfsCatalogService, times(1)).getSelfDescriptionsByIds(any());
+
+        // updated by another instance
+        when(participantDirectoryService.getSdHashes(any())).thenReturn(Map.of(orgaId, "hash2"));
+
+        participantService.getParticipantsByIds(List.of(orgaId));
+        verify(gxfsCatalogService, times(2)).getSelfDescriptionsByIds(any());
+    }
+
+    @Test
+    void getParticipantsByIdsOnlyInvalid() throws Exception {
+        assertTrue(participantService.getParticipantsByIds(List.of("garbage")).isEmpty());
+
+        verify(gxfsCatalogService, never()).getSelfDescriptionsByIds(any());
+    }
+
     @Test
     void getParticipantByIdFail() {
         doThrow(getWebClientResponseException()).when(gxfsCatalogService).getParticipantById(any());
@@ -402,6 +511,79 @@ class ParticipantServiceTests {
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, e.getStatusCode());
     }
 
+    @Test
+    void getParticipantByIdIsCached() throws Exception {
+        MerlotParticipantDto organization = participantService.getParticipantById("did:web:example.com:participant:someorga");
+        organization.getSelfDescription().findFirstCredentialSubjectByType(MerlotLegalParticipantCredentialSubject.class)
+                .setLegalName("Changed Orga");
+
+        MerlotParticipantDto cachedOrganization = participantService.getParticipantById("did:web:example.com:participant:someorga");
+        MerlotLegalParticipantCredentialSubject subject = cachedOrganization.getSelfDescription()
+                .findFirstCredentialSubjectByType(MerlotLegalParticipantCredentialSubject.class);
+        assertEquals(organizationLegalName, subject.getLegalName());
+
+        verify(gxfsCatalogService, times(1)).getParticipantById(eq("did:web:example.com:participant:someorga"));
+    }
+
+    @Test
+    void getParticipantByIdRefreshesOutdatedCachedSd() throws Exception {
+        String orgaId = "did:web:example.com:participant:someorga";
+        when(participantDirectoryService.getSdHash(orgaId)).thenReturn("hash1");
+
+        participantService.getParticipantById(orgaId);
+        participantService.getParticipantById(orgaId);
+        verify(gxfsCatalogService, times(1)).getParticipantById(eq(orgaId));
+
+        // another instance updated the participant
+        when(participantDirectoryService.getSdHash(orgaId)).thenReturn("hash2");
+        participantService.getParticipantById(orgaId);
+        participantService.getParticipantById(orgaId);
+        verify(gxfsCatalogService, times(2)).getParticipantById(eq(orgaId));
+    }
+
+    @Test
+    void updateParticipantCachesSdWithComputedHash() throws Exception {
+        String orgaId = "did:web:example.com:participant:someorga";
+        MerlotParticipantDto dtoWithEdits = getMerlotParticipantDtoWithEdits();
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:example.com:participant:somefedorga");
+        dtoWithEdits.setId(orgaId);
+
+        participantService.updateParticipant(dtoWithEdits, activeRole);
+
+        // the hash is computed from the returned SD without another catalog request
+        verify(gxfsCatalogService, never()).getSelfDescriptionsByIds(any());
+        ArgumentCaptor<String> sdHashCaptor = ArgumentCaptor.forClass(String.class);
+        verify(participantDirectoryService).updateEntry(any(), sdHashCaptor.capture(), any());
+        assertNotNull(sdHashCaptor.getValue());
+        // the ETag version is stored in the update transaction, the directory entry only after the commit
+        verify(organizationMetadataService).updateSelfDescriptionVersion(any(), eq(sdHashCaptor.getValue()), any());
+        clearInvocations(gxfsCatalogService);
+
+        // the directory entry and the cached SD use the same hash
+        when(participantDirectoryService.getSdHash(orgaId)).thenReturn(sdHashCaptor.getValue());
+        participantService.getParticipantById(orgaId);
+        verify(gxfsCatalogService, never()).getParticipantById(any());
+    }
+
+    @Test
+    void updateParticipantWritesThroughSdCache() throws Exception {
+        MerlotParticipantDto dtoWithEdits = getMerlotParticipantDtoWithEdits();
+        String editedStreetAddress = dtoWithEdits.getSelfDescription()
+                .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class)
+                .getLegalAddress().getStreetAddress();
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:example.com:participant:somefedorga");
+        dtoWithEdits.setId("did:web:example.com:participant:someorga");
+
+        participantService.updateParticipant(dtoWithEdits, activeRole);
+        clearInvocations(gxfsCatalogService);
+
+        MerlotParticipantDto organization = participantService.getParticipantById("did:web:example.com:participant:someorga");
+        assertEquals(editedStreetAddress, organization.getSelfDescription()
+                .findFirstCredentialSubjectByType(GxLegalParticipantCredentialSubject.class)
+                .getLegalAddress().getStreetAddress());
+        verify(gxfsCatalogService, never()).getParticipantById(any());
+    }
+
     @Test
     void updateParticipantExistentAsParticipant() throws Exception {
 
@@ -470,6 +652,23 @@ class ParticipantServiceTests {
             editedMetadata.getOrganisationSignerConfigDto().getMerlotVerificationMethod());
 
         verify(outgoingMessageService, times(0)).sendOrganizationMembershipRevokedMessage(any());
+        // legal name was not changed, so the cached signer name stays valid
+        verify(signerLegalNameService, never()).invalidateLegalName(any());
+        verify(selfDescriptionCleanupService, times(1)).requestCleanup(updatedParticipantDto.getId());
+    }
+
+    @Test
+    void updateParticipantRequestsCleanupBeforeLaterFailures() throws Exception {
+        MerlotParticipantDto dtoWithEdits = getMerlotParticipantDtoWithEdits();
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:example.com:participant:somefedorga");
+        dtoWithEdits.setId("did:web:example.com:participant:someorga");
+        doThrow(new RuntimeException("directory unavailable"))
+                .when(participantDirectoryService).updateEntry(any(), any(), any());
+
+        assertThrows(RuntimeException.class, () -> participantService.updateParticipant(dtoWithEdits, activeRole));
+
+        // the catalog already deprecated the old SD, so its cleanup must not depend on the rest of the update
+        verify(selfDescriptionCleanupService, times(1)).requestCleanup("did:web:example.com:participant:someorga");
     }
 
     @Test
@@ -540,6 +739,10 @@ class ParticipantServiceTests {
             editedMetadata.getOrganisationSignerConfigDto().getMerlotVerificationMethod());
 
         verify(outgoingMessageService, times(1)).sendOrganizationMembershipRevokedMessage(participantDto.getId());
+        // legal name was changed, so the cached signer name must be dropped
+        verify(signerLegalNameService, times(1)).invalidateLegalName(participantDto.getId());
+        verify(selfDescriptionCleanupService, times(1)).requestCleanup(participantDto.getId());
+        verify(organizationMetadataService, times(1)).getSignerConfigDto("did:web:example.com:participant:somefedorga");
     }
 
     @Test
@@ -620,6 +823,21 @@ class ParticipantServiceTests {
         assertEquals(0,  varArgs.getValue().getConnectors().size());
     }
 
+    @Test
+    void createParticipantDidServiceUnavailable() {
+        when(outgoingMessageService.requestNewDidPrivateKeyAsync(any())).thenReturn(
+                CompletableFuture.failedFuture(new AmqpReplyTimeoutException("Reply timed out", null)));
+
+        RegistrationFormContent registrationFormContent = getTestRegistrationFormContent();
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN,
+                "did:web:example.com:participant:somefedorga");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> participantService.createParticipant(registrationFormContent, activeRole));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, e.getStatusCode());
+        verify(organizationMetadataService, never()).saveMerlotParticipantMeta(any());
+    }
+
     @Test
     void createParticipantWithInvalidRegistrationForm() {
 
@@ -704,6 +922,32 @@ class ParticipantServiceTests {
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
     }
 
+    @Test
+    void updateParticipantAsFedAdminSignerConfigFailure() throws Exception {
+
+        MerlotParticipantDto participantDtoWithEdits = getMerlotParticipantDtoWithEdits();
+        when(organizationMetadataService.getSignerConfigDto(eq("did:web:example.com:participant:somefedorga")))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:example.com:participant:somefedorga");
+
+        ResponseStatusException e =
+            assertThrows(ResponseStatusException.class, () -> participantService.updateParticipant(participantDtoWithEdits, activeRole));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, e.getStatusCode());
+    }
+
+    @Test
+    void updateParticipantInvalidIdDoesNotLoadSignerConfig() throws Exception {
+
+        MerlotParticipantDto participantDtoWithEdits = getMerlotParticipantDtoWithEdits();
+        participantDtoWithEdits.setId("asdf");
+
+        OrganizationRoleGrantedAuthority activeRole = new OrganizationRoleGrantedAuthority(OrganizationRole.FED_ADMIN, "did:web:example.com:participant:somefedorga");
+
+        assertThrows(IllegalArgumentException.class, () -> participantService.updateParticipant(participantDtoWithEdits, activeRole));
+        verify(organizationMetadataService, never()).getSignerConfigDto(any());
+    }
+
     @Test
     void createParticipantAsFederatorNoSignerConfig() throws Exception {
 
@@ -756,6 +1000,18 @@ class ParticipantServiceTests {
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
     }
 
+    @Test
+    void getParticipantByIdWithoutSecrets() throws Exception {
+        MerlotParticipantDto organization =
+                participantService.getParticipantById("did:web:example.com:participant:someorga", false);
+        assertEquals("did:web:example.com:participant:someorga", organization.getId());
+
+        // signer config and certificates are not loaded, so nothing needs to be decrypted
+        verify(organizationMetadataService, times(1))
+                .getMerlotParticipantMetaDtoWithoutSecrets("did:web:example.com:participant:someorga");
+        verify(organizationMetadataService, never()).getMerlotParticipantMetaDto(any());
+    }
+
     @Test
     void getAgentDidsFromParticipant() {
         ParticipantAgentDidsDto didsDto = participantService.getAgentDidsByParticipantId("did:web:example.com:participant:someorga");
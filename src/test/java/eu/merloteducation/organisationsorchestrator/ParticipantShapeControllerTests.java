@@ -16,16 +16,16 @@
 
 package eu.merloteducation.organisationsorchestrator;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.merloteducation.authorizationlibrary.authorization.*;
 import eu.merloteducation.authorizationlibrary.config.InterceptorConfig;
 import eu.merloteducation.authorizationlibrary.config.MerlotSecurityConfig;
-import eu.merloteducation.gxfscataloglibrary.service.GxdchService;
 import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
-import eu.merloteducation.gxfscataloglibrary.service.GxfsWizardApiService;
 import eu.merloteducation.organisationsorchestrator.config.WebSecurityConfig;
 import eu.merloteducation.organisationsorchestrator.controller.ParticipantShapeController;
+import eu.merloteducation.organisationsorchestrator.service.ParticipantETagService;
+import eu.merloteducation.organisationsorchestrator.service.ShapeCacheService;
+import eu.merloteducation.organisationsorchestrator.service.ShapeCacheService.ShapeDocument;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,16 +33,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.Instant;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest({ParticipantShapeController.class, WebSecurityConfig.class})
@@ -52,10 +57,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class ParticipantShapeControllerTests {
 
     @MockBean
-    private GxfsWizardApiService gxfsWizardApiService;
-
-    @MockBean
-    private GxdchService gxdchService;
+    private ShapeCacheService shapeCacheService;
 
     @MockBean
     private UserInfoOpaqueTokenIntrospector userInfoOpaqueTokenIntrospector;
@@ -63,25 +65,30 @@ class ParticipantShapeControllerTests {
     @MockBean
     private GxfsCatalogService gxfsCatalogService;
 
+    @MockBean
+    private SignerLegalNameService signerLegalNameService;
+
     @MockBean
     private JwtAuthConverter jwtAuthConverter;
 
-    @Autowired
-    private MockMvc mvc;
+    @MockBean
+    private ParticipantETagService participantETagService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private MockMvc mvc;
 
+    private final Instant lastModified = Instant.parse("2024-05-01T10:00:00Z");
 
     @BeforeEach
-    public void beforeEach() throws JsonProcessingException {
-        lenient().when(gxfsWizardApiService.getShapeByName(any(), any())).thenReturn("shape");
-        lenient().when(gxdchService.getGxTnCs()).thenReturn(objectMapper.readTree("""
+    public void beforeEach() {
+        lenient().when(shapeCacheService.getShape(any(), any()))
+                .thenReturn(new ShapeDocument("shape", "1234", lastModified));
+        lenient().when(shapeCacheService.getGxTermsAndConditions()).thenReturn(new ShapeDocument("""
                 {
                     "version": "22.10",
                     "text": "TnC"
                 }
-                """));
+                """, "5678", lastModified));
     }
 
     @Test
@@ -161,4 +168,50 @@ class ParticipantShapeControllerTests {
                 .andDo(print())
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void getGxParticipantShapeHasValidators() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/shapes/gx/participant")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .with(jwt().authorities(
+                                new SimpleGrantedAuthority("ROLE_OrgLegRep_20")
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1234\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli()))
+                .andExpect(content().string("shape"));
+    }
+
+    @Test
+    void getGxParticipantShapeNotModified() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/shapes/gx/participant")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1234\"")
+                        .with(csrf())
+                        .with(jwt().authorities(
+                                new SimpleGrantedAuthority("ROLE_OrgLegRep_20")
+                        )))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getGxTncChangedEtag() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/shapes/gx/tnc")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1234\"")
+                        .with(csrf())
+                        .with(jwt().authorities(
+                                new SimpleGrantedAuthority("ROLE_OrgLegRep_20")
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5678\""));
+    }
 }
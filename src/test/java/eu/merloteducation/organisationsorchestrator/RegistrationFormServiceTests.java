@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapper;
+import eu.merloteducation.organisationsorchestrator.mappers.PdfContentMapperImpl;
+import eu.merloteducation.organisationsorchestrator.models.RegistrationFormContent;
+import eu.merloteducation.organisationsorchestrator.service.RegistrationFormService;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationFormServiceTests {
+
+    private final PdfContentMapper pdfContentMapper = new PdfContentMapperImpl();
+
+    private byte[] registrationForm;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registrationForm = new ClassPathResource("organisations/merlotRegistrationForm_MERLOT.pdf")
+                .getContentAsByteArray();
+    }
+
+    private RegistrationFormContent readWithFullDocument() throws IOException {
+        try (PDDocument pdDoc = Loader.loadPDF(registrationForm)) {
+            return pdfContentMapper.getRegistrationFormContentFromRegistrationForm(
+                    pdDoc.getDocumentCatalog().getAcroForm());
+        }
+    }
+
+    @Test
+    void readRegistrationFormInMemory() throws IOException {
+        RegistrationFormService registrationFormService =
+                new RegistrationFormService(pdfContentMapper, DataSize.ofMegabytes(1));
+
+        RegistrationFormContent content = registrationFormService.readRegistrationForm(
+                new MockMultipartFile("file", "form.pdf", MediaType.APPLICATION_PDF_VALUE, registrationForm));
+
+        assertNotNull(content.getOrganizationLegalName());
+        assertEquals(readWithFullDocument(), content);
+    }
+
+    @Test
+    void readRegistrationFormFromTempFile() throws IOException {
+        // any form exceeds the limit, so it is parsed from a temp file
+        RegistrationFormService registrationFormService =
+                new RegistrationFormService(pdfContentMapper, DataSize.ofBytes(1));
+
+        RegistrationFormContent content = registrationFormService.readRegistrationForm(
+                new MockMultipartFile("file", "form.pdf", MediaType.APPLICATION_PDF_VALUE, registrationForm));
+
+        assertEquals(readWithFullDocument(), content);
+    }
+
+    @Test
+    void readRegistrationFormNoPdf() {
+        RegistrationFormService registrationFormService =
+                new RegistrationFormService(pdfContentMapper, DataSize.ofMegabytes(1));
+        MockMultipartFile file = new MockMultipartFile("file", "form.txt", "text/plain", "It's not a PDF!".getBytes());
+
+        assertThrows(IOException.class, () -> registrationFormService.readRegistrationForm(file));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionMeta;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import eu.merloteducation.organisationsorchestrator.models.entities.DeprecatedSelfDescription;
+import eu.merloteducation.organisationsorchestrator.models.entities.SelfDescriptionCleanupRequest;
+import eu.merloteducation.organisationsorchestrator.repositories.DeprecatedSelfDescriptionRepository;
+import eu.merloteducation.organisationsorchestrator.repositories.SelfDescriptionCleanupRequestRepository;
+import eu.merloteducation.organisationsorchestrator.service.SelfDescriptionCleanupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SelfDescriptionCleanupServiceTests {
+
+    private static final String PARTICIPANT_ID = "did:web:example.com:participant:someorga";
+
+    @Mock
+    private GxfsCatalogService gxfsCatalogService;
+
+    @Mock
+    private SelfDescriptionCleanupRequestRepository cleanupRequestRepository;
+
+    @Mock
+    private DeprecatedSelfDescriptionRepository deprecatedSdRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SelfDescriptionCleanupService selfDescriptionCleanupService;
+
+    private GXFSCatalogListResponse<SelfDescriptionItem> getDeprecatedSdResponse(String... sdHashes) {
+        GXFSCatalogListResponse<SelfDescriptionItem> response = new GXFSCatalogListResponse<>();
+        response.setItems(Arrays.stream(sdHashes).map(sdHash -> {
+            SelfDescriptionMeta meta = new SelfDescriptionMeta();
+            meta.setSdHash(sdHash);
+            meta.setSubjectId(PARTICIPANT_ID);
+            meta.setStatus("deprecated");
+            SelfDescriptionItem item = new SelfDescriptionItem();
+            item.setMeta(meta);
+            return item;
+        }).toList());
+        response.setTotalCount(sdHashes.length);
+        return response;
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        selfDescriptionCleanupService = new SelfDescriptionCleanupService(gxfsCatalogService, cleanupRequestRepository,
+                deprecatedSdRepository, Runnable::run, meterRegistry, transactionManager, 3, 100, 2,
+                Duration.ofMinutes(5), 1000);
+    }
+
+    @Test
+    void requestCleanupIsStored() {
+        selfDescriptionCleanupService.requestCleanup(PARTICIPANT_ID);
+
+        ArgumentCaptor<SelfDescriptionCleanupRequest> captor = ArgumentCaptor.forClass(SelfDescriptionCleanupRequest.class);
+        verify(cleanupRequestRepository).save(captor.capture());
+        assertEquals(PARTICIPANT_ID, captor.getValue().getParticipantId());
+    }
+
+    @Test
+    void requestCleanupIsCommittedIndependently() {
+        selfDescriptionCleanupService.requestCleanup(PARTICIPANT_ID);
+
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void sweepCollectsAndDeletesDeprecatedSelfDescriptions() {
+        Instant requestedAt = Instant.now();
+        when(cleanupRequestRepository.claimBatch(any(), any()))
+                .thenReturn(List.of(new SelfDescriptionCleanupRequest(PARTICIPANT_ID, requestedAt, null)));
+        when(gxfsCatalogService.getSelfDescriptionsByIds(any(), any()))
+                .thenReturn(getDeprecatedSdResponse("hash1", "hash2"));
+        DeprecatedSelfDescription sd1 = new DeprecatedSelfDescription("hash1", PARTICIPANT_ID, requestedAt, 0, null);
+        DeprecatedSelfDescription sd2 = new DeprecatedSelfDescription("hash2", PARTICIPANT_ID, requestedAt, 0, null);
+        when(deprecatedSdRepository.claimBatch(eq(3), any(), any()))
+                .thenReturn(List.of(sd1, sd2));
+
+        selfDescriptionCleanupService.sweep();
+
+        verify(gxfsCatalogService, times(1)).getSelfDescriptionsByIds(eq(new String[]{PARTICIPANT_ID}), any());
+        verify(deprecatedSdRepository).saveAll(argThat(sds -> ((List<DeprecatedSelfDescription>) sds).size() == 2));
+        verify(cleanupRequestRepository).deleteByParticipantIdAndRequestedAt(PARTICIPANT_ID, requestedAt);
+        verify(gxfsCatalogService, times(1)).deleteSelfDescriptionByHash("hash1");
+        verify(gxfsCatalogService, times(1)).deleteSelfDescriptionByHash("hash2");
+        verify(deprecatedSdRepository).delete(sd1);
+        verify(deprecatedSdRepository).delete(sd2);
+        assertEquals(2, meterRegistry.get("sd.cleanup.deletions").counter().count());
+    }
+
+    @Test
+    void sweepKeepsFailedDeletionForRetry() {
+        DeprecatedSelfDescription sd = new DeprecatedSelfDescription("hash1", PARTICIPANT_ID, Instant.now(), 0,
+                Instant.now().plusSeconds(300));
+        when(deprecatedSdRepository.claimBatch(eq(3), any(), any()))
+                .thenReturn(List.of(sd));
+        doThrow(new RuntimeException("catalog unavailable"))
+                .when(gxfsCatalogService).deleteSelfDescriptionByHash("hash1");
+        when(deprecatedSdRepository.countByAttemptsLessThan(3)).thenReturn(1L);
+
+        selfDescriptionCleanupService.sweep();
+
+        assertEquals(1, sd.getAttempts());
+        assertNull(sd.getClaimedUntil());
+        verify(deprecatedSdRepository).save(sd);
+        verify(deprecatedSdRepository, never()).delete(any());
+        assertEquals(1, meterRegistry.get("sd.cleanup.failures").counter().count());
+        assertEquals(1, meterRegistry.get("sd.cleanup.backlog").gauge().value());
+    }
+
+    @Test
+    void sweepReportsSelfDescriptionsOutOfAttempts() {
+        DeprecatedSelfDescription sd = new DeprecatedSelfDescription("hash1", PARTICIPANT_ID, Instant.now(), 2, null);
+        when(deprecatedSdRepository.claimBatch(eq(3), any(), any())).thenReturn(List.of(sd));
+        doThrow(new RuntimeException("catalog unavailable"))
+                .when(gxfsCatalogService).deleteSelfDescriptionByHash("hash1");
+        when(deprecatedSdRepository.countByAttemptsGreaterThanEqual(3)).thenReturn(1L);
+
+        selfDescriptionCleanupService.sweep();
+
+        assertEquals(3, sd.getAttempts());
+        assertEquals(0, meterRegistry.get("sd.cleanup.backlog").gauge().value());
+        assertEquals(1, meterRegistry.get("sd.cleanup.dead.letters").gauge().value());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.merloteducation.gxfscataloglibrary.service.GxdchService;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsWizardApiService;
+import eu.merloteducation.organisationsorchestrator.service.ShapeCacheService;
+import eu.merloteducation.organisationsorchestrator.service.ShapeCacheService.ShapeDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShapeCacheServiceTests {
+
+    @Mock
+    private GxfsWizardApiService gxfsWizardApiService;
+
+    @Mock
+    private GxdchService gxdchService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ShapeCacheService createShapeCacheService(Duration refresh) {
+        return new ShapeCacheService(gxfsWizardApiService, gxdchService, objectMapper, new SimpleMeterRegistry(),
+                refresh, Duration.ofHours(1));
+    }
+
+    private ShapeDocument awaitRefresh(ShapeCacheService shapeCacheService, int expectedCalls) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mockingDetails(gxfsWizardApiService).getInvocations().size() < expectedCalls
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        return shapeCacheService.getShape("gx", "Legalparticipant.json");
+    }
+
+    @Test
+    void getShapeIsCached() {
+        when(gxfsWizardApiService.getShapeByName("gx", "Legalparticipant.json")).thenReturn("shape");
+        ShapeCacheService shapeCacheService = createShapeCacheService(Duration.ofMinutes(10));
+
+        ShapeDocument first = shapeCacheService.getShape("gx", "Legalparticipant.json");
+        ShapeDocument second = shapeCacheService.getShape("gx", "Legalparticipant.json");
+
+        assertEquals("shape", first.content());
+        assertSame(first, second);
+        verify(gxfsWizardApiService, times(1)).getShapeByName("gx", "Legalparticipant.json");
+    }
+
+    @Test
+    void getGxTermsAndConditionsIsCached() throws Exception {
+        when(gxdchService.getGxTnCs()).thenReturn(objectMapper.readTree("{\"version\": \"22.10\"}"));
+        ShapeCacheService shapeCacheService = createShapeCacheService(Duration.ofMinutes(10));
+
+        assertEquals("{\"version\":\"22.10\"}", shapeCacheService.getGxTermsAndConditions().content());
+        shapeCacheService.getGxTermsAndConditions();
+
+        verify(gxdchService, times(1)).getGxTnCs();
+    }
+
+    @Test
+    void getGxTermsAndConditionsMissingIsNotCached() {
+        when(gxdchService.getGxTnCs()).thenReturn(null);
+        ShapeCacheService shapeCacheService = createShapeCacheService(Duration.ofMinutes(10));
+
+        assertNull(shapeCacheService.getGxTermsAndConditions());
+        assertNull(shapeCacheService.getGxTermsAndConditions());
+
+        verify(gxdchService, times(2)).getGxTnCs();
+    }
+
+    @Test
+    void getShapeFailureIsNotWrapped() {
+        when(gxfsWizardApiService.getShapeByName("gx", "Legalparticipant.json"))
+                .thenThrow(new IllegalStateException("wizard unavailable"));
+        ShapeCacheService shapeCacheService = createShapeCacheService(Duration.ofMinutes(10));
+
+        assertThrows(IllegalStateException.class, () -> shapeCacheService.getShape("gx", "Legalparticipant.json"));
+    }
+
+    @Test
+    void refreshKeepsValidatorsOfUnchangedShape() throws Exception {
+        when(gxfsWizardApiService.getShapeByName("gx", "Legalparticipant.json")).thenReturn("shape");
+        ShapeCacheService shapeCacheService = createShapeCacheService(Duration.ofMillis(1));
+
+        ShapeDocument first = shapeCacheService.getShape("gx", "Legalparticipant.json");
+        Thread.sleep(5);
+        // the stale document is served while it is revalidated in the background
+        assertSame(first, shapeCacheService.getShape("gx", "Legalparticipant.json"));
+
+        ShapeDocument refreshed = awaitRefresh(shapeCacheService, 2);
+        assertEquals(first.etag(), refreshed.etag());
+        assertEquals(first.lastModified(), refreshed.lastModified());
+    }
+
+    @Test
+    void refreshReplacesChangedShape() throws Exception {
+        when(gxfsWizardApiService.getShapeByName("gx", "Legalparticipant.json"))
+                .thenReturn("shape")
+                .thenReturn("changed shape");
+        ShapeCacheService shapeCacheService = createShapeCacheService(Duration.ofMillis(1));
+
+        ShapeDocument first = shapeCacheService.getShape("gx", "Legalparticipant.json");
+        Thread.sleep(5);
+        shapeCacheService.getShape("gx", "Legalparticipant.json");
+
+        ShapeDocument refreshed = awaitRefresh(shapeCacheService, 2);
+        assertEquals("changed shape", refreshed.content());
+        assertNotEquals(first.etag(), refreshed.etag());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.merloteducation.gxfscataloglibrary.models.query.GXFSQueryLegalNameItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.GXFSCatalogListResponse;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionItem;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.SelfDescriptionMeta;
+import eu.merloteducation.gxfscataloglibrary.models.selfdescriptions.merlot.participants.MerlotLegalParticipantCredentialSubject;
+import eu.merloteducation.gxfscataloglibrary.service.GxfsCatalogService;
+import eu.merloteducation.organisationsorchestrator.service.SignerLegalNameService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static eu.merloteducation.organisationsorchestrator.SelfDescriptionDemoData.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SignerLegalNameServiceTests {
+
+    private static final String SIGNER_ID = "did:web:example.com:participant:signer";
+
+    @Mock
+    private GxfsCatalogService gxfsCatalogService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SignerLegalNameService signerLegalNameService;
+
+    private GXFSCatalogListResponse<GXFSQueryLegalNameItem> getLegalNameResponse(String legalName) {
+        GXFSCatalogListResponse<GXFSQueryLegalNameItem> response = new GXFSCatalogListResponse<>();
+        GXFSQueryLegalNameItem item = new GXFSQueryLegalNameItem();
+        item.setLegalName(legalName);
+        response.setTotalCount(1);
+        response.setItems(List.of(item));
+        return response;
+    }
+
+    private GXFSCatalogListResponse<SelfDescriptionItem> getSelfDescriptionsResponse(String participantId,
+                                                                                     String legalName)
+            throws JsonProcessingException {
+        MerlotLegalParticipantCredentialSubject merlotParticipantCs = getMerlotParticipantCs(participantId);
+        merlotParticipantCs.setLegalName(legalName);
+        SelfDescriptionMeta meta = new SelfDescriptionMeta();
+        meta.setContent(createVpFromCsList(List.of(getGxParticipantCs(participantId), merlotParticipantCs),
+                participantId));
+        SelfDescriptionItem item = new SelfDescriptionItem();
+        item.setMeta(meta);
+        GXFSCatalogListResponse<SelfDescriptionItem> response = new GXFSCatalogListResponse<>();
+        response.setTotalCount(1);
+        response.setItems(List.of(item));
+        return response;
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        signerLegalNameService = new SignerLegalNameService(gxfsCatalogService, meterRegistry,
+                Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    void getLegalNameIsCached() {
+        when(gxfsCatalogService.getParticipantLegalNameByUri(any(), eq(SIGNER_ID)))
+                .thenReturn(getLegalNameResponse("Signer Orga"));
+
+        assertEquals("Signer Orga", signerLegalNameService.getLegalNameForSigner(SIGNER_ID));
+        assertEquals("Signer Orga", signerLegalNameService.getLegalNameForSigner(SIGNER_ID));
+
+        verify(gxfsCatalogService, times(1)).getParticipantLegalNameByUri(any(), eq(SIGNER_ID));
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "signerLegalNames")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "signerLegalNames")
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void getLegalNameAfterInvalidation() {
+        when(gxfsCatalogService.getParticipantLegalNameByUri(any(), eq(SIGNER_ID)))
+                .thenReturn(getLegalNameResponse("Signer Orga"))
+                .thenReturn(getLegalNameResponse("Renamed Signer Orga"));
+
+        assertEquals("Signer Orga", signerLegalNameService.getLegalNameForSigner(SIGNER_ID));
+        signerLegalNameService.invalidateLegalName(SIGNER_ID);
+        assertEquals("Renamed Signer Orga", signerLegalNameService.getLegalNameForSigner(SIGNER_ID));
+
+        verify(gxfsCatalogService, times(2)).getParticipantLegalNameByUri(any(), eq(SIGNER_ID));
+    }
+
+    @Test
+    void getLegalNameUnresolvableIsNotCached() {
+        when(gxfsCatalogService.getParticipantLegalNameByUri(any(), eq(SIGNER_ID)))
+                .thenReturn(new GXFSCatalogListResponse<>());
+
+        assertNull(signerLegalNameService.getLegalNameForSigner(SIGNER_ID));
+        assertNull(signerLegalNameService.getLegalNameForSigner(SIGNER_ID));
+
+        verify(gxfsCatalogService, times(2)).getParticipantLegalNameByUri(any(), eq(SIGNER_ID));
+    }
+
+    @Test
+    void getLegalNamesResolvesMissingSignersWithOneRequest() throws Exception {
+        String otherSignerId = "did:web:example.com:participant:othersigner";
+        String unknownSignerId = "did:web:example.com:participant:unknownsigner";
+        when(gxfsCatalogService.getParticipantLegalNameByUri(any(), eq(SIGNER_ID)))
+                .thenReturn(getLegalNameResponse("Signer Orga"));
+        when(gxfsCatalogService.getSelfDescriptionsByIds(any()))
+                .thenReturn(getSelfDescriptionsResponse(otherSignerId, "Other Signer Orga"));
+
+        // warm up the cache for one of the signers
+        signerLegalNameService.getLegalNameForSigner(SIGNER_ID);
+
+        Map<String, String> legalNames = signerLegalNameService.getLegalNamesForSigners(
+                List.of(SIGNER_ID, otherSignerId, otherSignerId, unknownSignerId));
+
+        assertEquals(Map.of(SIGNER_ID, "Signer Orga", otherSignerId, "Other Signer Orga"), legalNames);
+        verify(gxfsCatalogService, times(1)).getParticipantLegalNameByUri(any(), eq(SIGNER_ID));
+        verify(gxfsCatalogService, times(1)).getSelfDescriptionsByIds(any());
+
+        // resolved signers are cached, unresolvable ones are asked for again
+        signerLegalNameService.getLegalNamesForSigners(List.of(otherSignerId));
+        verify(gxfsCatalogService, times(1)).getSelfDescriptionsByIds(any());
+    }
+
+    @Test
+    void getLegalNamesCatalogFailure() {
+        when(gxfsCatalogService.getSelfDescriptionsByIds(any())).thenThrow(new RuntimeException("catalog unavailable"));
+
+        assertEquals(Map.of(), signerLegalNameService.getLegalNamesForSigners(List.of(SIGNER_ID)));
+    }
+}
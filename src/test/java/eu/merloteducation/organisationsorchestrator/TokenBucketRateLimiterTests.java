@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2024 Dataport. All rights reserved. Developed as part of the MERLOT project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.merloteducation.organisationsorchestrator;
+
+import eu.merloteducation.organisationsorchestrator.service.TokenBucketRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTests {
+
+    @Test
+    void burstUpToCapacity() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(3, 0.001);
+
+        assertTrue(rateLimiter.tryAcquire());
+        assertTrue(rateLimiter.tryAcquire());
+        assertTrue(rateLimiter.tryAcquire());
+        assertFalse(rateLimiter.tryAcquire());
+    }
+
+    @Test
+    void acquireWaitsForRefill() throws InterruptedException {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 20);
+
+        long start = System.nanoTime();
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 40, "second token should only be available after refill");
+    }
+
+    @Test
+    void invalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(1, 0));
+    }
+}